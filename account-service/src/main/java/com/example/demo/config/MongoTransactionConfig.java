@@ -0,0 +1,21 @@
+package com.example.demo.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.MongoTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+public class MongoTransactionConfig {
+
+  @Bean
+  MongoTransactionManager transactionManager(MongoDatabaseFactory factory) {
+    return new MongoTransactionManager(factory);
+  }
+
+  @Bean
+  TransactionTemplate transactionTemplate(MongoTransactionManager transactionManager) {
+    return new TransactionTemplate(transactionManager);
+  }
+}
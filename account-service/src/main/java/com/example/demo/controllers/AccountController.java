@@ -1,7 +1,17 @@
 package com.example.demo.controllers;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,18 +19,62 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.models.Account;
+import com.example.demo.models.AccountPage;
+import com.example.demo.models.Posting;
+import com.example.demo.models.PostingResult;
+import com.example.demo.models.TransferResult;
+import com.example.demo.services.AccountImportService;
 import com.example.demo.services.AccountService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 
 @RestController
 @RequestMapping("/api/accounts")
 public class AccountController {
   private final AccountService service;
+  private final AccountImportService importService;
+  private final ObjectMapper mapper;
+
+  public AccountController(AccountService service, AccountImportService importService, ObjectMapper mapper) {
+    this.service = service;
+    this.importService = importService;
+    this.mapper = mapper;
+  }
 
-  public AccountController(AccountService service) { this.service = service; }
+  @GetMapping
+  public AccountPage list(@RequestParam(required = false) String after,
+                          @RequestParam(required = false) Boolean active,
+                          @RequestParam(defaultValue = "100") int limit) {
+    return service.listAccounts(after, active, limit);
+  }
+
+  @GetMapping("/stream")
+  public void stream(@RequestParam(required = false) String after,
+                     @RequestParam(required = false) Boolean active,
+                     HttpServletResponse response) throws IOException {
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType("application/x-ndjson");
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    Writer out = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+    try (Stream<Account> accounts = service.streamAccounts(after, active)) {
+      Iterator<Account> it = accounts.iterator();
+      while (it.hasNext()) {
+        out.write(mapper.writeValueAsString(it.next()));
+        out.write('\n');
+      }
+    }
+    out.flush();
+  }
 
   @PostMapping("/create")
   public ResponseEntity<Account> create(@RequestBody Account account) {
@@ -28,14 +82,86 @@ public class AccountController {
     return ResponseEntity.status(HttpStatus.CREATED).body(saved);
   }
 
+  @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+  public void importAccounts(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                             HttpServletRequest request, HttpServletResponse response) throws IOException {
+    AccountImportService.Format format = contentType.startsWith("text/csv")
+        ? AccountImportService.Format.CSV : AccountImportService.Format.NDJSON;
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType("application/x-ndjson");
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+    Writer out = new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8);
+    importService.importAccounts(in, format, out);
+    out.flush();
+  }
+
   @GetMapping("/{accountNumber}")
-  public Account get(@PathVariable String accountNumber) {
-    return service.getByAccountNumber(accountNumber);
+  public ResponseEntity<Account> get(@PathVariable String accountNumber, WebRequest request) {
+    Account account = service.getByAccountNumber(accountNumber);
+    String etag = etag(account);
+    // credits to a hot account's slots leave the version alone, so its ETag cannot vouch for the balance
+    if (account.getHotSlots() == null && request.checkNotModified(etag)) return null;
+    return ResponseEntity.ok().eTag(etag).body(account);
+  }
+
+  @GetMapping(params = "numbers")
+  public List<Account> getMany(@RequestParam List<String> numbers) {
+    return service.getByAccountNumbers(numbers);
+  }
+
+  @PostMapping("/lookup")
+  public List<Account> lookup(@RequestBody List<String> accountNumbers) {
+    return service.getByAccountNumbers(accountNumbers);
+  }
+
+  @PostMapping("/transfer")
+  public TransferResult transfer(@RequestBody Map<String,Object> body) {
+    return service.transfer((String) body.get("from"), (String) body.get("to"), ((Number) body.get("amount")).doubleValue());
+  }
+
+  @PostMapping("/postings")
+  public PostingResult postings(@RequestBody List<Posting> postings) {
+    return service.applyPostings(postings);
   }
 
   @PutMapping("/{accountNumber}/balance")
-  public Account updateBalance(@PathVariable String accountNumber, @RequestBody Map<String,Object> body) {
+  public ResponseEntity<Account> updateBalance(@PathVariable String accountNumber,
+                                               @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+                                               @RequestBody Map<String,Object> body) {
     double newBalance = ((Number)body.get("balance")).doubleValue();
-    return service.updateBalance(accountNumber, newBalance);
+    Account updated = ifMatch == null
+        ? service.updateBalance(accountNumber, newBalance)
+        : service.updateBalance(accountNumber, newBalance, parseVersion(ifMatch));
+    return ResponseEntity.ok().eTag(etag(updated)).body(updated);
+  }
+
+  @PostMapping("/{accountNumber}/balance/delta")
+  public ResponseEntity<Account> applyBalanceDelta(@PathVariable String accountNumber, @RequestBody Map<String,Object> body) {
+    double amount = ((Number)body.get("amount")).doubleValue();
+    boolean requireNonNegative = Boolean.TRUE.equals(body.get("requireNonNegative"));
+    Account updated = service.applyBalanceDelta(accountNumber, amount, requireNonNegative);
+    return ResponseEntity.ok().eTag(etag(updated)).body(updated);
+  }
+
+  // {"slots": N} spreads credits to the account over N sub-balances; 0 turns it back into a plain account
+  @PutMapping("/{accountNumber}/hot")
+  public Account setHotSlots(@PathVariable String accountNumber, @RequestBody Map<String,Object> body) {
+    return service.setHotSlots(accountNumber, ((Number) body.get("slots")).intValue());
+  }
+
+  private static String etag(Account account) {
+    return "\"" + (account.getVersion() == null ? 0L : account.getVersion()) + "\"";
+  }
+
+  private static long parseVersion(String ifMatch) {
+    String value = ifMatch.trim();
+    if (value.startsWith("W/")) value = value.substring(2);
+    value = value.replace("\"", "");
+    try {
+      return Long.parseLong(value);
+    } catch (NumberFormatException ex) {
+      throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+    }
   }
 }
@@ -1,8 +1,12 @@
 package com.example.demo.models;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
 import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
 
 
 import lombok.AllArgsConstructor;
@@ -12,6 +16,7 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Document(collection = "accounts")
+@CompoundIndex(name = "active_accountNumber", def = "{'active': 1, 'accountNumber': 1}")
 @Getter
 @Setter
 @AllArgsConstructor
@@ -29,7 +34,18 @@ public class Account {
 
     private String holderName;
 
+    @Field("b")
+    @ValueConverter(MinorUnitsConverter.class)
     private Double balance;
     
     private boolean active = true;
+
+    @Version
+    private Long version;
+
+    // Hot accounts spread credits over this many sub-balance slots and b holds the rest
+    // of the balance; null for ordinary accounts.
+    @Field("hs")
+    @Indexed(sparse = true)
+    private Integer hotSlots;
 }
@@ -0,0 +1,6 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+// next is the cursor for the following page, null on the last page
+public record AccountPage(List<Account> accounts, String next) {}
@@ -0,0 +1,4 @@
+package com.example.demo.models;
+
+// one balance movement: from only is a withdrawal, to only a deposit, both a transfer
+public record Posting(String from, String to, double amount) {}
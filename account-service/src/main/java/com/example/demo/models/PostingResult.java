@@ -0,0 +1,6 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+// errors[i] is null when posting i was applied; accounts are every account the batch named, as committed
+public record PostingResult(List<String> errors, List<Account> accounts) {}
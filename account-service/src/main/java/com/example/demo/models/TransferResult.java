@@ -0,0 +1,4 @@
+package com.example.demo.models;
+
+// both accounts as committed by the transfer
+public record TransferResult(Account from, Account to) {}
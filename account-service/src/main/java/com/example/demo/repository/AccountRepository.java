@@ -1,12 +1,15 @@
 package com.example.demo.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.example.demo.models.Account;
 
-public interface AccountRepository extends MongoRepository<Account, String> {
+public interface AccountRepository extends MongoRepository<Account, String>, AccountRepositoryCustom {
 	  Optional<Account> findByAccountNumber(String accountNumber);
 	  boolean existsByAccountNumber(String accountNumber);
-	}
\ No newline at end of file
+	  List<Account> findByAccountNumberIn(Collection<String> accountNumbers);
+	}
@@ -0,0 +1,55 @@
+package com.example.demo.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.example.demo.models.Account;
+
+public interface AccountRepositoryCustom {
+  // ordinary accounts only: a hot account matches nothing here and goes through its slots
+  Optional<Account> applyBalanceDelta(String accountNumber, double amount, boolean requireNonNegative);
+
+  void initVersion(String accountNumber);
+
+  // ordinary accounts only, like applyBalanceDelta
+  Optional<Account> setBalanceIfVersion(String accountNumber, double newBalance, long expectedVersion);
+
+  // writes each account's balance if its version still matches, bumping the version;
+  // returns how many matched
+  int setBalancesIfVersion(List<Account> accounts);
+
+  // index in the batch -> Mongo error code, for the documents that were not inserted
+  Map<Integer, Integer> insertUnordered(List<Account> accounts);
+
+  // keyset pages ordered by accountNumber; after and active are optional
+  List<Account> findPage(String after, Boolean active, int limit);
+
+  // backed by an open cursor: callers must close the stream
+  Stream<Account> streamAll(String after, Boolean active, int batchSize);
+
+  // atomically advances the shared account number counter; returns the first number of the block
+  long reserveNumberBlock(int blockSize);
+
+  // adds amount to one sub-balance slot of a hot account
+  void creditSlot(String accountNumber, int slot, double amount);
+
+  // sum of a hot account's slots
+  double slotTotal(String accountNumber);
+
+  // zeroes a hot account's slots and returns what they held; run inside a transaction
+  double drainSlots(String accountNumber);
+
+  // hot accounts only: moves the base balance (b) without any guard, bumping the version
+  Optional<Account> applyHotDelta(String accountNumber, double amount);
+
+  // hot accounts only: sets the base balance, bumping the version
+  Optional<Account> setHotBalance(String accountNumber, double newBalance);
+
+  // turns hot mode on (slots > 0) or off (null) and adds baseDelta to the base balance
+  Optional<Account> setHotSlots(String accountNumber, Integer slots, double baseDelta);
+
+  // accounts with a non-zero slot, whether or not they are still hot
+  List<String> findSlottedAccountNumbers();
+}
@@ -0,0 +1,195 @@
+package com.example.demo.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.models.Account;
+import com.example.demo.models.MinorUnitsConverter;
+
+public class AccountRepositoryImpl implements AccountRepositoryCustom {
+  // sub-balances of hot accounts: _id "<accountNumber>#<slot>", b in minor units
+  private static final String SLOTS = "account_slots";
+
+  private final MongoTemplate mongo;
+
+  public AccountRepositoryImpl(MongoTemplate mongo) { this.mongo = mongo; }
+
+  // Single findAndModify: the guard is part of the match, so a debit that would
+  // overdraw simply matches nothing and no concurrent update can be lost.
+  @Override
+  public Optional<Account> applyBalanceDelta(String accountNumber, double amount, boolean requireNonNegative) {
+    Criteria criteria = where("accountNumber").is(accountNumber).and("hotSlots").exists(false);
+    if (requireNonNegative && amount < 0) criteria = criteria.and("balance").gte(-amount);
+    Account updated = mongo.findAndModify(new Query(criteria),
+        new Update().inc("balance", amount).inc("version", 1),
+        FindAndModifyOptions.options().returnNew(true),
+        Account.class);
+    return Optional.ofNullable(updated);
+  }
+
+  @Override
+  public void initVersion(String accountNumber) {
+    mongo.updateFirst(new Query(where("accountNumber").is(accountNumber).and("version").exists(false)),
+        new Update().set("version", 0L), Account.class);
+  }
+
+  @Override
+  public Optional<Account> setBalanceIfVersion(String accountNumber, double newBalance, long expectedVersion) {
+    Criteria criteria = where("accountNumber").is(accountNumber).and("hotSlots").exists(false);
+    // documents written before versioning carry no version field and count as 0
+    criteria = expectedVersion == 0
+        ? criteria.orOperator(where("version").is(0L), where("version").exists(false))
+        : criteria.and("version").is(expectedVersion);
+    Account updated = mongo.findAndModify(new Query(criteria),
+        new Update().set("balance", newBalance).inc("version", 1),
+        FindAndModifyOptions.options().returnNew(true),
+        Account.class);
+    return Optional.ofNullable(updated);
+  }
+
+  @Override
+  public int setBalancesIfVersion(List<Account> accounts) {
+    if (accounts.isEmpty()) return 0;
+    BulkOperations bulk = mongo.bulkOps(BulkMode.UNORDERED, Account.class);
+    for (Account a : accounts) {
+      long expected = a.getVersion() == null ? 0L : a.getVersion();
+      Criteria criteria = where("accountNumber").is(a.getAccountNumber());
+      criteria = expected == 0
+          ? criteria.orOperator(where("version").is(0L), where("version").exists(false))
+          : criteria.and("version").is(expected);
+      bulk.updateOne(new Query(criteria), new Update().set("balance", a.getBalance()).inc("version", 1));
+    }
+    return bulk.execute().getMatchedCount();
+  }
+
+  @Override
+  public Map<Integer, Integer> insertUnordered(List<Account> accounts) {
+    Map<Integer, Integer> failures = new HashMap<>();
+    if (accounts.isEmpty()) return failures;
+    try {
+      mongo.bulkOps(BulkMode.UNORDERED, Account.class).insert(accounts).execute();
+    } catch (BulkOperationException ex) {
+      ex.getErrors().forEach(error -> failures.put(error.getIndex(), error.getCode()));
+    }
+    return failures;
+  }
+
+  @Override
+  public List<Account> findPage(String after, Boolean active, int limit) {
+    return mongo.find(keyset(after, active).limit(limit), Account.class);
+  }
+
+  @Override
+  public Stream<Account> streamAll(String after, Boolean active, int batchSize) {
+    return mongo.stream(keyset(after, active).cursorBatchSize(batchSize), Account.class);
+  }
+
+  @Override
+  public long reserveNumberBlock(int blockSize) {
+    Document counter = mongo.findAndModify(new Query(where("_id").is("accountNumber")),
+        new Update().inc("next", (long) blockSize),
+        FindAndModifyOptions.options().upsert(true).returnNew(true),
+        Document.class, "counters");
+    return counter.get("next", Number.class).longValue() - blockSize;
+  }
+
+  // Each slot is its own document, so concurrent credits to different slots never
+  // contend on the same document.
+  @Override
+  public void creditSlot(String accountNumber, int slot, double amount) {
+    mongo.upsert(new Query(where("_id").is(accountNumber + "#" + slot)),
+        new Update().inc("b", MinorUnitsConverter.toMinor(amount)), SLOTS);
+  }
+
+  @Override
+  public double slotTotal(String accountNumber) {
+    long total = 0;
+    for (Document slot : mongo.find(slots(accountNumber), Document.class, SLOTS))
+      total += slot.get("b", Number.class).longValue();
+    return total / 100.0;
+  }
+
+  @Override
+  public double drainSlots(String accountNumber) {
+    long total = 0;
+    for (Document slot : mongo.find(slots(accountNumber), Document.class, SLOTS)) {
+      long b = slot.get("b", Number.class).longValue();
+      if (b == 0) continue;
+      // $inc rather than $set: inside the transaction a concurrent credit is a write conflict, not a lost update
+      mongo.updateFirst(new Query(where("_id").is(slot.get("_id"))), new Update().inc("b", -b), SLOTS);
+      total += b;
+    }
+    return total / 100.0;
+  }
+
+  @Override
+  public Optional<Account> applyHotDelta(String accountNumber, double amount) {
+    Account updated = mongo.findAndModify(
+        new Query(where("accountNumber").is(accountNumber).and("hotSlots").exists(true)),
+        new Update().inc("balance", amount).inc("version", 1),
+        FindAndModifyOptions.options().returnNew(true),
+        Account.class);
+    return Optional.ofNullable(updated);
+  }
+
+  @Override
+  public Optional<Account> setHotBalance(String accountNumber, double newBalance) {
+    Account updated = mongo.findAndModify(
+        new Query(where("accountNumber").is(accountNumber).and("hotSlots").exists(true)),
+        new Update().set("balance", newBalance).inc("version", 1),
+        FindAndModifyOptions.options().returnNew(true),
+        Account.class);
+    return Optional.ofNullable(updated);
+  }
+
+  @Override
+  public Optional<Account> setHotSlots(String accountNumber, Integer slots, double baseDelta) {
+    Update update = new Update().inc("balance", baseDelta).inc("version", 1);
+    if (slots == null) update.unset("hotSlots");
+    else update.set("hotSlots", slots);
+    Account updated = mongo.findAndModify(new Query(where("accountNumber").is(accountNumber)), update,
+        FindAndModifyOptions.options().returnNew(true),
+        Account.class);
+    return Optional.ofNullable(updated);
+  }
+
+  @Override
+  public List<String> findSlottedAccountNumbers() {
+    Query query = new Query(where("b").ne(0L));
+    query.fields().include("_id");
+    return mongo.find(query, Document.class, SLOTS).stream()
+        .map(slot -> slot.getString("_id"))
+        .map(id -> id.substring(0, id.lastIndexOf('#')))
+        .distinct()
+        .toList();
+  }
+
+  // '$' sorts right after '#', so this is exactly the account's slot ids
+  private static Query slots(String accountNumber) {
+    return new Query(where("_id").gte(accountNumber + "#").lt(accountNumber + "$"));
+  }
+
+  // served by the accountNumber index, or active_accountNumber when filtering
+  private static Query keyset(String after, Boolean active) {
+    Criteria criteria = new Criteria();
+    if (active != null) criteria = criteria.and("active").is(active);
+    if (after != null) criteria = criteria.and("accountNumber").gt(after);
+    return new Query(criteria).with(Sort.by("accountNumber"));
+  }
+}
@@ -0,0 +1,42 @@
+package com.example.demo.repository;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Account;
+
+import jakarta.annotation.PostConstruct;
+
+// Converts the legacy "balance" double into long minor units under "b". This
+// runs before the web server starts: an $inc on "b" against an unconverted
+// document would silently start the balance from zero.
+@Component
+public class AccountStorageMigration {
+  private static final Logger log = LoggerFactory.getLogger(AccountStorageMigration.class);
+
+  private final MongoTemplate mongo;
+  private final boolean enabled;
+
+  public AccountStorageMigration(MongoTemplate mongo, @Value("${accounts.migration.enabled:true}") boolean enabled) {
+    this.mongo = mongo;
+    this.enabled = enabled;
+  }
+
+  @PostConstruct
+  public void migrate() {
+    if (!enabled) return;
+    Document legacy = new Document("b", new Document("$exists", false)).append("balance", new Document("$exists", true));
+    Document toMinor = new Document("$toLong",
+        new Document("$round", List.of(new Document("$multiply", List.of("$balance", 100)), 0)));
+    long migrated = mongo.getCollection(mongo.getCollectionName(Account.class)).updateMany(legacy, List.of(
+        new Document("$set", new Document("b", toMinor)),
+        new Document("$unset", "balance"))).getModifiedCount();
+    if (migrated > 0) log.info("Migrated {} account balances to minor units", migrated);
+  }
+}
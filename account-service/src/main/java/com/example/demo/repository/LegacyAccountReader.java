@@ -0,0 +1,18 @@
+package com.example.demo.repository;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Account;
+
+// Reads the pre-compact "balance" double for documents AccountStorageMigration has not reached.
+@Component
+public class LegacyAccountReader implements AfterConvertCallback<Account> {
+
+  @Override
+  public Account onAfterConvert(Account account, Document doc, String collection) {
+    if (!doc.containsKey("b") && doc.get("balance") instanceof Number balance) account.setBalance(balance.doubleValue());
+    return account;
+  }
+}
@@ -0,0 +1,157 @@
+package com.example.demo.services;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Account;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.cache.CacheMeterBinder;
+
+/**
+ * Size-bounded, read-through cache of accounts keyed by account number. Entries are
+ * spread over independently locked LRU segments and expire after a TTL, which bounds
+ * how long another instance's writes can stay invisible here.
+ */
+@Component
+public class AccountCache {
+  private static final int SEGMENTS = 16;
+
+  private final boolean enabled;
+  private final long ttlNanos;
+  private final Segment[] segments = new Segment[SEGMENTS];
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder puts = new LongAdder();
+  private final LongAdder evictions = new LongAdder();
+
+  public AccountCache(@Value("${accounts.cache.enabled:false}") boolean enabled,
+                      @Value("${accounts.cache.max-size:10000}") int maxSize,
+                      @Value("${accounts.cache.ttl-seconds:30}") long ttlSeconds,
+                      MeterRegistry registry) {
+    this.enabled = enabled;
+    this.ttlNanos = ttlSeconds * 1_000_000_000L;
+    int perSegment = Math.max(1, maxSize / SEGMENTS);
+    for (int i = 0; i < SEGMENTS; i++) segments[i] = new Segment(perSegment);
+    if (enabled) new Metrics(this).bindTo(registry);
+  }
+
+  public Account get(String accountNumber) {
+    if (!enabled) return null;
+    Segment segment = segmentFor(accountNumber);
+    Entry entry;
+    synchronized (segment) {
+      entry = segment.get(accountNumber);
+      if (entry != null && entry.expiresAt - System.nanoTime() < 0) {
+        segment.remove(accountNumber);
+        entry = null;
+      }
+    }
+    if (entry == null) {
+      misses.increment();
+      return null;
+    }
+    hits.increment();
+    return copy(entry.account);
+  }
+
+  public void put(Account account) {
+    if (!enabled || account == null || account.getAccountNumber() == null) return;
+    Segment segment = segmentFor(account.getAccountNumber());
+    Entry entry = new Entry(copy(account), System.nanoTime() + ttlNanos);
+    synchronized (segment) {
+      Entry current = segment.get(account.getAccountNumber());
+      if (current != null && isOlder(account, current.account)) return;
+      segment.put(account.getAccountNumber(), entry);
+    }
+    puts.increment();
+  }
+
+  public void putAll(List<Account> accounts) {
+    accounts.forEach(this::put);
+  }
+
+  public void invalidate(String accountNumber) {
+    if (!enabled) return;
+    Segment segment = segmentFor(accountNumber);
+    synchronized (segment) {
+      segment.remove(accountNumber);
+    }
+  }
+
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      synchronized (segment) {
+        size += segment.size();
+      }
+    }
+    return size;
+  }
+
+  // A read that raced with a write must not replace the written version.
+  private static boolean isOlder(Account candidate, Account current) {
+    return candidate.getVersion() != null && current.getVersion() != null
+        && candidate.getVersion() < current.getVersion();
+  }
+
+  private Segment segmentFor(String accountNumber) {
+    int h = accountNumber.hashCode();
+    return segments[(h ^ (h >>> 16)) & (SEGMENTS - 1)];
+  }
+
+  // Account is mutable, so neither the caller's instance nor the cached one is shared.
+  private static Account copy(Account a) {
+    return new Account(a.getId(), a.getAccountNumber(), a.getHolderName(), a.getBalance(), a.isActive(), a.getVersion(),
+        a.getHotSlots());
+  }
+
+  private record Entry(Account account, long expiresAt) { }
+
+  private final class Segment extends LinkedHashMap<String, Entry> {
+    private final int capacity;
+
+    Segment(int capacity) {
+      super(16, 0.75f, true);
+      this.capacity = capacity;
+    }
+
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+      if (size() <= capacity) return false;
+      evictions.increment();
+      return true;
+    }
+  }
+
+  private static final class Metrics extends CacheMeterBinder<AccountCache> {
+    Metrics(AccountCache cache) {
+      super(cache, "accounts", List.<Tag>of());
+    }
+
+    @Override
+    protected Long size() { return getCache().size(); }
+
+    @Override
+    protected long hitCount() { return getCache().hits.sum(); }
+
+    @Override
+    protected Long missCount() { return getCache().misses.sum(); }
+
+    @Override
+    protected Long evictionCount() { return getCache().evictions.sum(); }
+
+    @Override
+    protected long putCount() { return getCache().puts.sum(); }
+
+    @Override
+    protected void bindImplementationSpecificMetrics(MeterRegistry registry) { }
+  }
+}
@@ -0,0 +1,140 @@
+package com.example.demo.services;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.example.demo.models.Account;
+import com.example.demo.repository.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@Service
+public class AccountImportService {
+  public enum Format { NDJSON, CSV }
+
+  static final int DUPLICATE_KEY = 11000;
+
+  private final AccountRepository repo;
+  private final ObjectMapper mapper;
+  private final int batchSize;
+
+  public AccountImportService(AccountRepository repo, ObjectMapper mapper,
+                              @Value("${accounts.import.batch-size:1000}") int batchSize) {
+    this.repo = repo;
+    this.mapper = mapper;
+    this.batchSize = batchSize;
+  }
+
+  // Reads one line at a time and keeps at most one batch in memory; a result line
+  // is written (and flushed) for every input line once its batch has been inserted.
+  public void importAccounts(BufferedReader in, Format format, Writer out) throws IOException {
+    List<Account> batch = new ArrayList<>(batchSize);
+    List<Long> batchLines = new ArrayList<>(batchSize);
+    String[] header = null;
+    long lineNo = 0;
+    String line;
+    while ((line = in.readLine()) != null) {
+      lineNo++;
+      if (line.isBlank()) continue;
+      if (format == Format.CSV && header == null) {
+        header = splitCsv(line).toArray(String[]::new);
+        continue;
+      }
+      Account account;
+      try {
+        account = format == Format.CSV ? fromCsv(header, line) : mapper.readValue(line, Account.class);
+        validate(account);
+      } catch (IOException | IllegalArgumentException ex) {
+        writeResult(out, lineNo, null, "INVALID", ex.getMessage());
+        continue;
+      }
+      batch.add(account);
+      batchLines.add(lineNo);
+      if (batch.size() >= batchSize) {
+        flush(batch, batchLines, out);
+        batch = new ArrayList<>(batchSize);
+        batchLines = new ArrayList<>(batchSize);
+      }
+    }
+    flush(batch, batchLines, out);
+  }
+
+  private void flush(List<Account> batch, List<Long> batchLines, Writer out) throws IOException {
+    if (batch.isEmpty()) return;
+    Map<Integer, Integer> failures = repo.insertUnordered(batch);
+    for (int i = 0; i < batch.size(); i++) {
+      Integer code = failures.get(i);
+      String status = code == null ? "CREATED" : code == DUPLICATE_KEY ? "DUPLICATE" : "FAILED";
+      writeResult(out, batchLines.get(i), batch.get(i).getAccountNumber(), status,
+          code == null || code == DUPLICATE_KEY ? null : "error " + code);
+    }
+    out.flush();
+  }
+
+  private void writeResult(Writer out, long line, String accountNumber, String status, String error) throws IOException {
+    Map<String, Object> result = new LinkedHashMap<>();
+    result.put("line", line);
+    if (accountNumber != null) result.put("accountNumber", accountNumber);
+    result.put("status", status);
+    if (error != null) result.put("error", error);
+    out.write(mapper.writeValueAsString(result));
+    out.write('\n');
+  }
+
+  private static void validate(Account a) {
+    if (a.getAccountNumber() == null || a.getAccountNumber().isBlank())
+      throw new IllegalArgumentException("accountNumber is required");
+    a.setId(null);
+    a.setVersion(0L);
+    // hot slots are enabled only through the hot-account endpoint
+    a.setHotSlots(null);
+    if (a.getBalance() == null) a.setBalance(0.0);
+  }
+
+  private static Account fromCsv(String[] header, String line) {
+    List<String> values = splitCsv(line);
+    Account a = new Account();
+    for (int i = 0; i < header.length && i < values.size(); i++) {
+      String v = values.get(i);
+      if (v.isEmpty()) continue;
+      switch (header[i]) {
+        case "accountNumber" -> a.setAccountNumber(v);
+        case "holderName" -> a.setHolderName(v);
+        case "balance" -> a.setBalance(Double.parseDouble(v));
+        case "active" -> a.setActive(Boolean.parseBoolean(v));
+        default -> { }
+      }
+    }
+    return a;
+  }
+
+  static List<String> splitCsv(String line) {
+    List<String> values = new ArrayList<>();
+    StringBuilder current = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') { current.append('"'); i++; }
+        else if (c == '"') quoted = false;
+        else current.append(c);
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        values.add(current.toString().trim());
+        current.setLength(0);
+      } else {
+        current.append(c);
+      }
+    }
+    values.add(current.toString().trim());
+    return values;
+  }
+}
@@ -0,0 +1,73 @@
+package com.example.demo.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.repository.AccountRepository;
+
+/**
+ * Hands out account numbers from blocks reserved with a single $inc on a shared
+ * counter document, so numbers are unique across instances without a uniqueness
+ * check per account. Numbers left in a block when an instance stops are skipped.
+ */
+@Component
+public class AccountNumberAllocator {
+  private final AccountRepository repo;
+  private final boolean enabled;
+  private final int blockSize;
+  private final long start;
+  private final String prefix;
+  private final int digits;
+  private final boolean luhn;
+
+  private long next;
+  private long end;
+
+  public AccountNumberAllocator(AccountRepository repo,
+                                @Value("${accounts.numbering.enabled:false}") boolean enabled,
+                                @Value("${accounts.numbering.block-size:100}") int blockSize,
+                                @Value("${accounts.numbering.start:1000000}") long start,
+                                @Value("${accounts.numbering.prefix:ACC}") String prefix,
+                                @Value("${accounts.numbering.digits:10}") int digits,
+                                @Value("${accounts.numbering.check-digit:true}") boolean luhn) {
+    this.repo = repo;
+    this.enabled = enabled;
+    this.blockSize = blockSize;
+    this.start = start;
+    this.prefix = prefix;
+    this.digits = digits;
+    this.luhn = luhn;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public String next() {
+    long sequence;
+    synchronized (this) {
+      if (next == end) {
+        next = repo.reserveNumberBlock(blockSize);
+        end = next + blockSize;
+      }
+      sequence = next++;
+    }
+    String body = String.format("%0" + digits + "d", start + sequence);
+    return prefix + body + (luhn ? luhnDigit(body) : "");
+  }
+
+  static int luhnDigit(String digits) {
+    int sum = 0;
+    boolean dbl = true;
+    for (int i = digits.length() - 1; i >= 0; i--) {
+      int d = digits.charAt(i) - '0';
+      if (dbl) {
+        d *= 2;
+        if (d > 9) d -= 9;
+      }
+      sum += d;
+      dbl = !dbl;
+    }
+    return (10 - sum % 10) % 10;
+  }
+}
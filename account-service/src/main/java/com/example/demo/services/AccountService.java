@@ -1,37 +1,312 @@
 package com.example.demo.services;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.models.Account;
+import com.example.demo.models.AccountPage;
+import com.example.demo.models.Posting;
+import com.example.demo.models.PostingResult;
+import com.example.demo.models.TransferResult;
 import com.example.demo.repository.AccountRepository;
+import com.mongodb.MongoException;
 
 @Service
 public class AccountService {
+  static final int MAX_LOOKUP_SIZE = 500;
+  static final int MAX_PAGE_SIZE = 1000;
+  static final int STREAM_BATCH_SIZE = 500;
+  static final int MAX_TRANSFER_ATTEMPTS = 3;
+  static final int MAX_POSTINGS = 5000;
+  static final int MAX_ALLOCATION_ATTEMPTS = 5;
+
   private final AccountRepository repo;
+  private final AccountCache cache;
+  private final AccountNumberAllocator allocator;
+  private final TransactionOperations tx;
+  private final HotAccounts hot;
 
-  public AccountService(AccountRepository repo) { this.repo = repo; }
+  public AccountService(AccountRepository repo, AccountCache cache, AccountNumberAllocator allocator,
+                        TransactionOperations tx, HotAccounts hot) {
+    this.repo = repo;
+    this.cache = cache;
+    this.allocator = allocator;
+    this.tx = tx;
+    this.hot = hot;
+  }
 
   public Account create(Account a) {
-    if(repo.existsByAccountNumber(a.getAccountNumber())) throw new IllegalArgumentException("exists");
-    return repo.save(a);
+    boolean allocated = allocator.isEnabled() && (a.getAccountNumber() == null || a.getAccountNumber().isBlank());
+    if (!allocated && repo.existsByAccountNumber(a.getAccountNumber()))
+      throw new IllegalArgumentException("exists");
+    // both are server-managed: the version starts the optimistic lock, hot slots are set only
+    // through setHotSlots
+    a.setVersion(null);
+    a.setHotSlots(null);
+    for (int attempt = 1; ; attempt++) {
+      if (allocated) a.setAccountNumber(allocator.next());
+      try {
+        Account saved = repo.save(a);
+        cache.put(saved);
+        return saved;
+      } catch (DuplicateKeyException ex) {
+        // a client-supplied number was created concurrently since the exists check
+        if (!allocated) throw new IllegalArgumentException("exists");
+        // allocated numbers never repeat, but one can match a legacy or imported account: take the next
+        if (attempt >= MAX_ALLOCATION_ATTEMPTS)
+          throw new IllegalStateException("No free account number after " + attempt + " attempts");
+      }
+    }
   }
 
   public Account getByAccountNumber(String accountNumber) {
-    return repo.findByAccountNumber(accountNumber)
-          .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    Account cached = cache.get(accountNumber);
+    if (cached != null) return cached;
+    Account a = total(load(accountNumber));
+    cache.put(a);
+    return a;
+  }
+
+  public List<Account> getByAccountNumbers(Collection<String> accountNumbers) {
+    LinkedHashSet<String> distinct = new LinkedHashSet<>(accountNumbers);
+    if (distinct.size() > MAX_LOOKUP_SIZE)
+      throw new IllegalArgumentException("At most " + MAX_LOOKUP_SIZE + " account numbers per lookup");
+    List<Account> result = new ArrayList<>(distinct.size());
+    List<String> missing = new ArrayList<>();
+    for (String number : distinct) {
+      Account cached = cache.get(number);
+      if (cached != null) result.add(cached);
+      else missing.add(number);
+    }
+    if (missing.isEmpty()) return result;
+    List<Account> loaded = repo.findByAccountNumberIn(missing);
+    loaded.forEach(this::total);
+    cache.putAll(loaded);
+    result.addAll(loaded);
+    return result;
+  }
+
+  public AccountPage listAccounts(String after, Boolean active, int limit) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE)
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    // one extra row tells us whether another page exists without a count
+    List<Account> rows = repo.findPage(after, active, limit + 1);
+    rows.forEach(this::total);
+    if (rows.size() <= limit) return new AccountPage(rows, null);
+    List<Account> page = rows.subList(0, limit);
+    return new AccountPage(page, page.get(limit - 1).getAccountNumber());
+  }
+
+  public Stream<Account> streamAccounts(String after, Boolean active) {
+    return repo.streamAll(after, active, STREAM_BATCH_SIZE).map(this::total);
   }
 
   public Account updateBalance(String accountNumber, double newBalance) {
-    Account a = getByAccountNumber(accountNumber);
+    Account a = load(accountNumber);
+    if (a.getHotSlots() != null) {
+      Account updated = hot.setBalance(accountNumber, newBalance)
+          .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+      cache.put(updated);
+      return updated;
+    }
     a.setBalance(newBalance);
-    return repo.save(a);
+    return saveAndCache(a);
+  }
+
+  // Credits to a hot account's slots leave its version alone, so the version cannot show
+  // that nothing changed since the client read the balance: hot accounts are refused here.
+  public Account updateBalance(String accountNumber, double newBalance, long expectedVersion) {
+    Account updated = repo.setBalanceIfVersion(accountNumber, newBalance, expectedVersion)
+          .orElseThrow(() -> hotAccount(accountNumber).isPresent()
+              ? new ResponseStatusException(HttpStatus.CONFLICT, "Conditional balance writes are not supported on hot accounts")
+              : repo.existsByAccountNumber(accountNumber)
+                  ? new ResponseStatusException(HttpStatus.PRECONDITION_FAILED)
+                  : new ResponseStatusException(HttpStatus.NOT_FOUND));
+    cache.put(updated);
+    return updated;
+  }
+
+  public Account applyBalanceDelta(String accountNumber, double amount, boolean requireNonNegative) {
+    for (int attempt = 1; ; attempt++) {
+      try {
+        Account updated = delta(accountNumber, amount, requireNonNegative)
+              .orElseThrow(() -> repo.existsByAccountNumber(accountNumber)
+                  ? new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds")
+                  : new ResponseStatusException(HttpStatus.NOT_FOUND));
+        cache.put(updated);
+        return updated;
+      } catch (DataAccessException ex) {
+        // only a hot account's debit runs in a transaction and can conflict
+        if (attempt >= MAX_TRANSFER_ATTEMPTS || !isTransient(ex)) throw ex;
+      }
+    }
+  }
+
+  // Ordinary accounts take one guarded findAndModify; a hot account matches nothing there
+  // and goes through its slots instead.
+  private Optional<Account> delta(String accountNumber, double amount, boolean requireNonNegative) {
+    Optional<Account> updated = repo.applyBalanceDelta(accountNumber, amount, requireNonNegative);
+    if (updated.isPresent()) return updated;
+    return hotAccount(accountNumber).flatMap(a -> hot.apply(a, amount, requireNonNegative));
+  }
+
+  private Optional<Account> hotAccount(String accountNumber) {
+    return repo.findByAccountNumber(accountNumber).filter(a -> a.getHotSlots() != null);
+  }
+
+  public Account setHotSlots(String accountNumber, int slots) {
+    Account updated = hot.configure(accountNumber, slots);
+    cache.put(updated);
+    return updated;
+  }
+
+  // Debit and credit commit together in one multi-document transaction; a failed
+  // credit rolls the debit back. Write conflicts with concurrent transfers are retried.
+  public TransferResult transfer(String from, String to, double amount) {
+    if (amount <= 0) throw new IllegalArgumentException("Amount must be positive");
+    if (from.equals(to)) throw new IllegalArgumentException("Cannot transfer to same account");
+    for (int attempt = 1; ; attempt++) {
+      try {
+        TransferResult result = tx.execute(status -> new TransferResult(
+            delta(from, -amount, true)
+                .orElseThrow(() -> repo.existsByAccountNumber(from)
+                    ? new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds")
+                    : new ResponseStatusException(HttpStatus.NOT_FOUND)),
+            delta(to, amount, false)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND))));
+        cache.put(result.from());
+        cache.put(result.to());
+        return result;
+      } catch (DataAccessException ex) {
+        if (attempt >= MAX_TRANSFER_ATTEMPTS || !isTransient(ex)) throw ex;
+      }
+    }
+  }
+
+  // Applies the postings in order against one read of every account they name and
+  // writes each touched account once, all in one transaction. Postings that would
+  // overdraw or that name unknown accounts are skipped and reported; the rest commit.
+  public PostingResult applyPostings(List<Posting> postings) {
+    if (postings.size() > MAX_POSTINGS)
+      throw new IllegalArgumentException("At most " + MAX_POSTINGS + " postings per batch");
+    Set<String> numbers = new LinkedHashSet<>();
+    for (Posting p : postings) {
+      if (p.from() != null) numbers.add(p.from());
+      if (p.to() != null) numbers.add(p.to());
+    }
+    for (int attempt = 1; ; attempt++) {
+      try {
+        PostingResult result = tx.execute(status -> post(postings, numbers));
+        cache.putAll(result.accounts());
+        return result;
+      } catch (DataAccessException ex) {
+        boolean retryable = isTransient(ex) || ex instanceof OptimisticLockingFailureException;
+        if (attempt >= MAX_TRANSFER_ATTEMPTS || !retryable) throw ex;
+      }
+    }
+  }
+
+  private PostingResult post(List<Posting> postings, Set<String> numbers) {
+    Map<String, Account> accounts = new HashMap<>();
+    // hot accounts are checked against their full balance, but only their base is written back
+    Map<String, Double> slots = new HashMap<>();
+    for (Account a : repo.findByAccountNumberIn(numbers)) {
+      accounts.put(a.getAccountNumber(), a);
+      if (a.getHotSlots() != null) {
+        slots.put(a.getAccountNumber(), repo.slotTotal(a.getAccountNumber()));
+        move(a, slots.get(a.getAccountNumber()));
+      }
+    }
+    Map<String, Account> touched = new LinkedHashMap<>();
+    List<String> errors = new ArrayList<>(postings.size());
+    for (Posting p : postings) {
+      String error = rejection(p, accounts);
+      errors.add(error);
+      if (error != null) continue;
+      if (p.from() != null) touched.put(p.from(), move(accounts.get(p.from()), -p.amount()));
+      if (p.to() != null) touched.put(p.to(), move(accounts.get(p.to()), p.amount()));
+    }
+    List<Account> changed = new ArrayList<>(touched.values());
+    slots.forEach((number, held) -> move(accounts.get(number), -held));
+    // a concurrent single-account update in between aborts the transaction and the batch is retried
+    if (repo.setBalancesIfVersion(changed) != changed.size())
+      throw new OptimisticLockingFailureException("Accounts changed while posting");
+    slots.forEach((number, held) -> move(accounts.get(number), held));
+    changed.forEach(a -> a.setVersion(a.getVersion() == null ? 1L : a.getVersion() + 1));
+    return new PostingResult(errors, new ArrayList<>(accounts.values()));
+  }
+
+  private static String rejection(Posting p, Map<String, Account> accounts) {
+    if (p.amount() <= 0) return "Amount must be positive";
+    if (p.from() == null && p.to() == null) return "Posting names no account";
+    if (p.from() != null && p.from().equals(p.to())) return "Cannot transfer to same account";
+    if ((p.from() != null && !accounts.containsKey(p.from())) || (p.to() != null && !accounts.containsKey(p.to())))
+      return "Account not found";
+    if (p.from() != null && balance(accounts.get(p.from())) < p.amount()) return "Insufficient funds";
+    return null;
+  }
+
+  // kept in whole minor units so a long run of postings does not drift
+  private static Account move(Account a, double amount) {
+    a.setBalance(Math.round((balance(a) + amount) * 100) / 100.0);
+    return a;
+  }
+
+  private static double balance(Account a) {
+    return a.getBalance() == null ? 0 : a.getBalance();
   }
 
   public Account changeStatus(String accountNumber, boolean active) {
-    Account a = getByAccountNumber(accountNumber);
-    return repo.save(a);
+    Account a = load(accountNumber);
+    a.setActive(active);
+    return saveAndCache(a);
+  }
+
+  // Writes always start from the database copy, never from a cached one.
+  private Account load(String accountNumber) {
+    Account a = repo.findByAccountNumber(accountNumber)
+          .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
+    if (a.getVersion() == null) {
+      // saved before versioning: give it a version so the optimistic save can match it
+      repo.initVersion(accountNumber);
+      a.setVersion(0L);
+    }
+    return a;
+  }
+
+  private Account total(Account a) {
+    return a.getHotSlots() == null ? a : hot.withTotal(a);
+  }
+
+  private static boolean isTransient(DataAccessException ex) {
+    return ex.getCause() instanceof MongoException mongo
+        && mongo.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
   }
-}
 
+  private Account saveAndCache(Account a) {
+    try {
+      Account saved = total(repo.save(a));
+      cache.put(saved);
+      return saved;
+    } catch (RuntimeException ex) {
+      cache.invalidate(a.getAccountNumber());
+      throw ex;
+    }
+  }
+}
@@ -0,0 +1,145 @@
+package com.example.demo.services;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.Account;
+import com.example.demo.repository.AccountRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Sharded balances for accounts that take a high rate of credits. The balance of a hot
+ * account is its base balance (b on the account document) plus N slot documents; a credit
+ * $incs one random slot, so N credits can be in flight without contending on one
+ * document. Debits check the full balance and take it from the base inside a transaction,
+ * so they still serialise on the account document. A periodic sweep folds the slots back
+ * into the base. Credits are not fenced against hot mode being turned off, so a credit that
+ * read the account as hot just before can land in a slot after the switch; the sweep folds
+ * slots of every account that has any, hot or not, so such a credit shows up at the next sweep.
+ */
+@Component
+public class HotAccounts {
+  private static final Logger log = LoggerFactory.getLogger(HotAccounts.class);
+
+  private final AccountRepository repo;
+  private final TransactionOperations tx;
+  private final int maxSlots;
+  private final long sweepSeconds;
+  private ScheduledExecutorService scheduler;
+
+  public HotAccounts(AccountRepository repo, TransactionOperations tx,
+                     @Value("${accounts.hot.max-slots:64}") int maxSlots,
+                     @Value("${accounts.hot.sweep-seconds:60}") long sweepSeconds) {
+    this.repo = repo;
+    this.tx = tx;
+    this.maxSlots = maxSlots;
+    this.sweepSeconds = sweepSeconds;
+  }
+
+  @PostConstruct
+  void start() {
+    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+      Thread t = new Thread(r, "hot-account-sweep");
+      t.setDaemon(true);
+      return t;
+    });
+    scheduler.scheduleWithFixedDelay(this::sweep, sweepSeconds, sweepSeconds, TimeUnit.SECONDS);
+  }
+
+  @PreDestroy
+  void shutdown() {
+    if (scheduler != null) scheduler.shutdownNow();
+  }
+
+  // replaces the base balance read from the account document with the full balance
+  public Account withTotal(Account a) {
+    a.setBalance(round(base(a) + repo.slotTotal(a.getAccountNumber())));
+    return a;
+  }
+
+  // a is the hot account as read; empty when a guarded debit would overdraw it
+  public Optional<Account> apply(Account a, double amount, boolean requireNonNegative) {
+    String number = a.getAccountNumber();
+    if (amount >= 0) {
+      repo.creditSlot(number, ThreadLocalRandom.current().nextInt(a.getHotSlots()), amount);
+      return Optional.of(withTotal(a));
+    }
+    // joins the caller's transaction for transfers; credits landing meanwhile only add to the total
+    return tx.execute(status -> {
+      double slots = repo.slotTotal(number);
+      Optional<Account> current = repo.findByAccountNumber(number);
+      if (current.isEmpty() || (requireNonNegative && base(current.get()) + slots < -amount)) return Optional.empty();
+      return repo.applyHotDelta(number, amount).map(updated -> {
+        updated.setBalance(round(base(updated) + slots));
+        return updated;
+      });
+    });
+  }
+
+  // an absolute balance replaces the slots as well as the base; the slots are only drained
+  // once the write has matched, so an account that is missing or no longer hot keeps them
+  public Optional<Account> setBalance(String accountNumber, double newBalance) {
+    return tx.execute(status -> {
+      Optional<Account> updated = repo.setHotBalance(accountNumber, newBalance);
+      updated.ifPresent(a -> repo.drainSlots(accountNumber));
+      return updated;
+    });
+  }
+
+  // slots == 0 turns hot mode off; either way the current slots are folded into the base first
+  public Account configure(String accountNumber, int slots) {
+    if (slots < 0 || slots > maxSlots)
+      throw new IllegalArgumentException("slots must be between 0 and " + maxSlots);
+    Account updated = tx.execute(status -> repo.setHotSlots(accountNumber, slots == 0 ? null : slots,
+            repo.drainSlots(accountNumber))
+        .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND)));
+    return slots == 0 ? updated : withTotal(updated);
+  }
+
+  void sweep() {
+    List<String> numbers;
+    try {
+      numbers = repo.findSlottedAccountNumbers();
+    } catch (RuntimeException ex) {
+      log.warn("Hot account sweep failed, will retry: {}", ex.getMessage());
+      return;
+    }
+    for (String number : numbers) {
+      try {
+        tx.executeWithoutResult(status -> {
+          double drained = repo.drainSlots(number);
+          if (drained == 0) return;
+          // an account no longer hot takes the late credit on its plain balance
+          repo.applyHotDelta(number, drained)
+              .or(() -> repo.applyBalanceDelta(number, drained, false))
+              .orElseThrow(() -> new IllegalStateException("account " + number + " is gone"));
+        });
+      } catch (RuntimeException ex) {
+        // usually a write conflict with a credit; the next sweep picks it up
+        log.debug("Sweep of hot account {} skipped: {}", number, ex.getMessage());
+      }
+    }
+  }
+
+  private static double base(Account a) {
+    return a.getBalance() == null ? 0 : a.getBalance();
+  }
+
+  private static double round(double amount) {
+    return Math.round(amount * 100) / 100.0;
+  }
+}
@@ -1,13 +1,18 @@
 
 package com.example.demo.controllers;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.io.Writer;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -20,6 +25,11 @@ import org.springframework.web.server.ResponseStatusException;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 
 import com.example.demo.models.Account;
+import com.example.demo.models.AccountPage;
+import com.example.demo.models.Posting;
+import com.example.demo.models.PostingResult;
+import com.example.demo.models.TransferResult;
+import com.example.demo.services.AccountImportService;
 import com.example.demo.services.AccountService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
@@ -32,6 +42,9 @@ class AccountControllerTest {
     @MockitoBean
     private AccountService accountService;
 
+    @MockitoBean
+    private AccountImportService importService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -45,6 +58,7 @@ class AccountControllerTest {
         testAccount.setHolderName("John Doe");
         testAccount.setBalance(1000.0);
         testAccount.setActive(true);
+        testAccount.setVersion(7L);
     }
 
     @Test
@@ -95,6 +109,57 @@ class AccountControllerTest {
         verify(accountService, times(1)).getByAccountNumber("ACC001");
     }
 
+    @Test
+    void testGetAccount_ReturnsETag_And304WhenUnchanged() throws Exception {
+
+        when(accountService.getByAccountNumber("ACC001")).thenReturn(testAccount);
+
+
+        mockMvc.perform(get("/api/accounts/ACC001"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"7\""));
+
+        mockMvc.perform(get("/api/accounts/ACC001").header("If-None-Match", "\"7\""))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        mockMvc.perform(get("/api/accounts/ACC001").header("If-None-Match", "\"6\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(7));
+    }
+
+    @Test
+    void testUpdateBalance_IfMatch_UsesConditionalUpdate() throws Exception {
+
+        testAccount.setVersion(8L);
+        testAccount.setBalance(1500.0);
+        when(accountService.updateBalance("ACC001", 1500.0, 7L)).thenReturn(testAccount);
+
+
+        mockMvc.perform(put("/api/accounts/ACC001/balance")
+                .header("If-Match", "\"7\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"balance\":1500.0}"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"8\""));
+
+        verify(accountService, never()).updateBalance("ACC001", 1500.0);
+    }
+
+    @Test
+    void testUpdateBalance_IfMatchStale_Returns412() throws Exception {
+
+        when(accountService.updateBalance("ACC001", 1500.0, 6L))
+            .thenThrow(new ResponseStatusException(HttpStatus.PRECONDITION_FAILED));
+
+
+        mockMvc.perform(put("/api/accounts/ACC001/balance")
+                .header("If-Match", "\"6\"")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"balance\":1500.0}"))
+                .andExpect(status().isPreconditionFailed());
+    }
+
     @Test
     void testGetAccount_NotFound_ThrowsException() throws Exception {
 
@@ -108,6 +173,33 @@ class AccountControllerTest {
         verify(accountService, times(1)).getByAccountNumber("INVALID");
     }
 
+    @Test
+    void testGetMany_Success() throws Exception {
+
+        when(accountService.getByAccountNumbers(List.of("ACC001", "ACC002"))).thenReturn(List.of(testAccount));
+
+
+        mockMvc.perform(get("/api/accounts").param("numbers", "ACC001,ACC002"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].accountNumber").value("ACC001"));
+
+        verify(accountService, times(1)).getByAccountNumbers(List.of("ACC001", "ACC002"));
+    }
+
+    @Test
+    void testLookup_Success() throws Exception {
+
+        when(accountService.getByAccountNumbers(List.of("ACC001"))).thenReturn(List.of(testAccount));
+
+
+        mockMvc.perform(post("/api/accounts/lookup")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(List.of("ACC001"))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].holderName").value("John Doe"));
+    }
+
     @Test
     void testUpdateBalance_Success() throws Exception {
 
@@ -177,6 +269,64 @@ class AccountControllerTest {
         verify(accountService, times(1)).updateBalance("ACC001", 2000.0);
     }
 
+    @Test
+    void testApplyBalanceDelta_Success() throws Exception {
+
+        testAccount.setBalance(900.0);
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("amount", -100);
+        requestBody.put("requireNonNegative", true);
+
+        when(accountService.applyBalanceDelta("ACC001", -100.0, true)).thenReturn(testAccount);
+
+
+        mockMvc.perform(post("/api/accounts/ACC001/balance/delta")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(900.0));
+
+        verify(accountService, times(1)).applyBalanceDelta("ACC001", -100.0, true);
+    }
+
+    @Test
+    void testApplyBalanceDelta_InsufficientFunds_ReturnsConflict() throws Exception {
+
+        Map<String, Object> requestBody = new HashMap<>();
+        requestBody.put("amount", -5000.0);
+        requestBody.put("requireNonNegative", true);
+
+        when(accountService.applyBalanceDelta("ACC001", -5000.0, true))
+            .thenThrow(new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient funds"));
+
+
+        mockMvc.perform(post("/api/accounts/ACC001/balance/delta")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(requestBody)))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void testImportAccounts_StreamsResults() throws Exception {
+
+        doAnswer(invocation -> {
+            Writer out = invocation.getArgument(2);
+            out.write("{\"line\":1,\"accountNumber\":\"ACC001\",\"status\":\"CREATED\"}\n");
+            return null;
+        }).when(importService).importAccounts(any(), eq(AccountImportService.Format.CSV), any());
+
+
+        mockMvc.perform(post("/api/accounts/import")
+                .contentType("text/csv")
+                .content("accountNumber,holderName\nACC001,John Doe\n"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"status\":\"CREATED\"")));
+
+        verify(importService, times(1)).importAccounts(any(), eq(AccountImportService.Format.CSV), any());
+    }
+
     @Test
     void testCreateAccount_WithMissingFields() throws Exception {
 
@@ -219,4 +369,63 @@ class AccountControllerTest {
 
         verify(accountService, times(1)).updateBalance("ACC001", -100.0);
     }
+
+    @Test
+    void testListAccounts_ReturnsPageWithCursor() throws Exception {
+
+        when(accountService.listAccounts("ACC000", true, 1)).thenReturn(new AccountPage(List.of(testAccount), "ACC001"));
+
+
+        mockMvc.perform(get("/api/accounts").param("after", "ACC000").param("active", "true").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.accounts[0].accountNumber").value("ACC001"))
+                .andExpect(jsonPath("$.next").value("ACC001"));
+    }
+
+    @Test
+    void testStreamAccounts_WritesNdjson() throws Exception {
+
+        Account second = new Account("456", "ACC002", "Jane Smith", 50.0, true, 1L, null);
+        when(accountService.streamAccounts(null, null)).thenReturn(Stream.of(testAccount, second));
+
+
+        mockMvc.perform(get("/api/accounts/stream"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith("application/x-ndjson"))
+                .andExpect(content().string(containsString("\"accountNumber\":\"ACC001\"")))
+                .andExpect(content().string(containsString("\"accountNumber\":\"ACC002\"")));
+    }
+
+    @Test
+    void testTransfer_ReturnsBothAccounts() throws Exception {
+
+        Account dest = new Account("456", "ACC002", "Jane Smith", 600.0, true, 3L, null);
+        testAccount.setBalance(900.0);
+        when(accountService.transfer("ACC001", "ACC002", 100.0)).thenReturn(new TransferResult(testAccount, dest));
+
+
+        mockMvc.perform(post("/api/accounts/transfer")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"from\":\"ACC001\",\"to\":\"ACC002\",\"amount\":100.0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.from.balance").value(900.0))
+                .andExpect(jsonPath("$.to.balance").value(600.0));
+    }
+
+    @Test
+    void testPostings_ReturnsPerItemErrors() throws Exception {
+
+        List<Posting> postings = List.of(new Posting(null, "ACC001", 50.0), new Posting("ACC001", "ACC002", 5000.0));
+        when(accountService.applyPostings(postings))
+                .thenReturn(new PostingResult(Arrays.asList(null, "Insufficient funds"), List.of(testAccount)));
+
+
+        mockMvc.perform(post("/api/accounts/postings")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("[{\"to\":\"ACC001\",\"amount\":50.0},{\"from\":\"ACC001\",\"to\":\"ACC002\",\"amount\":5000.0}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.errors[0]").doesNotExist())
+                .andExpect(jsonPath("$.errors[1]").value("Insufficient funds"))
+                .andExpect(jsonPath("$.accounts[0].accountNumber").value("ACC001"));
+    }
 }
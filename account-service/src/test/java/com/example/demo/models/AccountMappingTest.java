@@ -0,0 +1,70 @@
+package com.example.demo.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.convert.UpdateMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.repository.LegacyAccountReader;
+
+public class AccountMappingTest {
+
+    private MappingMongoConverter converter;
+    private MongoMappingContext context;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    @Test
+    void testWrite_BalanceAsMinorUnits() {
+
+        Document doc = new Document();
+        converter.write(new Account(null, "ACC001", "John Doe", 1000.10, true, 0L, null), doc);
+
+        assertEquals(100010L, doc.get("b"));
+        assertFalse(doc.containsKey("balance"));
+        assertEquals(1000.10, converter.read(Account.class, doc).getBalance());
+    }
+
+    @Test
+    void testRead_LegacyBalance() {
+
+        Document doc = new Document("accountNumber", "ACC001").append("balance", 250.75);
+
+        Account account = new LegacyAccountReader()
+                .onAfterConvert(converter.read(Account.class, doc), doc, "accounts");
+
+        assertEquals(250.75, account.getBalance());
+    }
+
+    @Test
+    void testDeltaUpdateAndGuard_UseMinorUnits() {
+
+        Document update = new UpdateMapper(converter).getMappedObject(
+                new Update().inc("balance", -25.5).getUpdateObject(), context.getPersistentEntity(Account.class));
+        Document guard = new QueryMapper(converter).getMappedObject(
+                Criteria.where("balance").gte(25.5).getCriteriaObject(), context.getPersistentEntity(Account.class));
+
+        assertEquals(new Document("b", -2550L), update.get("$inc"));
+        assertEquals(new Document("$gte", 2550L), guard.get("b"));
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.demo.models.Account;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccountCacheTest {
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    private static Account account(String number, double balance) {
+        return new Account(null, number, "John Doe", balance, true, null, null);
+    }
+
+    @Test
+    void testGet_ReturnsCopyOfCachedAccount() {
+
+        AccountCache cache = new AccountCache(true, 100, 30, registry);
+        Account original = account("ACC001", 100.0);
+        cache.put(original);
+        original.setBalance(0.0);
+
+
+        Account first = cache.get("ACC001");
+        first.setBalance(-1.0);
+
+
+        assertEquals(100.0, cache.get("ACC001").getBalance());
+        assertEquals(2.0, registry.get("cache.gets").tag("result", "hit").functionCounter().count());
+    }
+
+    @Test
+    void testBounded_EvictsAndCountsEvictions() {
+
+        AccountCache cache = new AccountCache(true, 16, 30, registry);
+
+
+        for (int i = 0; i < 1000; i++) cache.put(account("ACC" + i, i));
+
+
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), registry.get("cache.evictions").functionCounter().count());
+    }
+
+    @Test
+    void testInvalidate_And_Expiry() {
+
+        AccountCache cache = new AccountCache(true, 100, 0, registry);
+        cache.put(account("ACC001", 1.0));
+
+
+        assertNull(cache.get("ACC001"));
+        assertEquals(1.0, registry.get("cache.gets").tag("result", "miss").functionCounter().count());
+
+        AccountCache longLived = new AccountCache(true, 100, 30, new SimpleMeterRegistry());
+        longLived.put(account("ACC002", 2.0));
+        longLived.invalidate("ACC002");
+        assertNull(longLived.get("ACC002"));
+    }
+
+    @Test
+    void testPut_StaleVersionDoesNotOverwriteNewer() {
+
+        AccountCache cache = new AccountCache(true, 100, 30, registry);
+        Account newer = account("ACC001", 200.0);
+        newer.setVersion(5L);
+        Account older = account("ACC001", 100.0);
+        older.setVersion(4L);
+
+
+        cache.put(newer);
+        cache.put(older);
+
+
+        assertEquals(200.0, cache.get("ACC001").getBalance());
+    }
+
+    @Test
+    void testDisabled_NeverCaches() {
+
+        AccountCache cache = new AccountCache(false, 100, 30, registry);
+        cache.put(account("ACC001", 1.0));
+
+
+        assertNull(cache.get("ACC001"));
+        assertTrue(registry.find("cache.gets").meters().isEmpty());
+    }
+}
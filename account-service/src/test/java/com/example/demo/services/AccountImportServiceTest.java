@@ -0,0 +1,117 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.models.Account;
+import com.example.demo.repository.AccountRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+@ExtendWith(MockitoExtension.class)
+class AccountImportServiceTest {
+
+    @Mock
+    private AccountRepository repo;
+
+    private AccountImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        importService = new AccountImportService(repo, new ObjectMapper(), 2);
+    }
+
+    @Test
+    void testImportNdjson_BatchesAndReportsDuplicates() throws Exception {
+
+        String input = """
+            {"accountNumber":"ACC001","holderName":"John Doe","balance":100.0}
+            {"accountNumber":"ACC002","holderName":"Jane Smith"}
+            {"accountNumber":"ACC003","holderName":"Max Payne","balance":5}
+            """;
+        when(repo.insertUnordered(anyList()))
+            .thenReturn(Map.of(1, AccountImportService.DUPLICATE_KEY))
+            .thenReturn(Map.of());
+        StringWriter out = new StringWriter();
+
+
+        importService.importAccounts(new BufferedReader(new StringReader(input)), AccountImportService.Format.NDJSON, out);
+
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Account>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repo, times(2)).insertUnordered(captor.capture());
+        assertEquals(0.0, captor.getAllValues().get(0).get(1).getBalance());
+        verify(repo, never()).existsByAccountNumber(anyString());
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(3, lines.length);
+        assertTrue(lines[0].contains("\"status\":\"CREATED\""));
+        assertTrue(lines[1].contains("\"accountNumber\":\"ACC002\""));
+        assertTrue(lines[1].contains("\"status\":\"DUPLICATE\""));
+        assertTrue(lines[2].contains("\"line\":3"));
+    }
+
+    @Test
+    void testImportNdjson_IgnoresServerManagedFields() throws Exception {
+
+        String input = """
+            {"accountNumber":"ACC001","holderName":"John Doe","balance":100.0,"hotSlots":16,"version":7}
+            """;
+        when(repo.insertUnordered(anyList())).thenReturn(Map.of());
+
+
+        importService.importAccounts(new BufferedReader(new StringReader(input)), AccountImportService.Format.NDJSON,
+            new StringWriter());
+
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Account>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repo).insertUnordered(captor.capture());
+        Account imported = captor.getValue().get(0);
+        assertNull(imported.getHotSlots());
+        assertEquals(0L, imported.getVersion());
+    }
+
+    @Test
+    void testImportCsv_InvalidLinesReportedAndSkipped() throws Exception {
+
+        String input = """
+            accountNumber,holderName,balance
+            ACC001,"Doe, John",250.5
+            ,Nobody,1
+            """;
+        when(repo.insertUnordered(anyList())).thenReturn(Map.of());
+        StringWriter out = new StringWriter();
+
+
+        importService.importAccounts(new BufferedReader(new StringReader(input)), AccountImportService.Format.CSV, out);
+
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Account>> captor = ArgumentCaptor.forClass(List.class);
+        verify(repo, times(1)).insertUnordered(captor.capture());
+        Account imported = captor.getValue().get(0);
+        assertEquals("Doe, John", imported.getHolderName());
+        assertEquals(250.5, imported.getBalance());
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].contains("\"line\":3"));
+        assertTrue(lines[0].contains("\"status\":\"INVALID\""));
+        assertTrue(lines[1].contains("\"status\":\"CREATED\""));
+    }
+}
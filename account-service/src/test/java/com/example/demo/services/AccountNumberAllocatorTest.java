@@ -0,0 +1,56 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.repository.AccountRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AccountNumberAllocatorTest {
+
+    @Mock
+    private AccountRepository repo;
+
+    @Test
+    void testNext_ReservesOneBlockPerBlockSizeNumbers() {
+
+        AccountNumberAllocator allocator = new AccountNumberAllocator(repo, true, 2, 1000, "ACC", 6, false);
+        when(repo.reserveNumberBlock(2)).thenReturn(0L).thenReturn(2L);
+
+
+        String first = allocator.next();
+        String second = allocator.next();
+        String third = allocator.next();
+
+
+        assertEquals("ACC001000", first);
+        assertEquals("ACC001001", second);
+        assertEquals("ACC001002", third);
+        verify(repo, times(2)).reserveNumberBlock(2);
+    }
+
+    @Test
+    void testNext_AppendsLuhnCheckDigit() {
+
+        AccountNumberAllocator allocator = new AccountNumberAllocator(repo, true, 100, 0, "", 10, true);
+        when(repo.reserveNumberBlock(100)).thenReturn(7992739871L);
+
+
+        String number = allocator.next();
+
+
+        assertEquals("79927398713", number);
+    }
+
+    @Test
+    void testLuhnDigit() {
+
+        assertEquals(3, AccountNumberAllocator.luhnDigit("7992739871"));
+        assertEquals(0, AccountNumberAllocator.luhnDigit("0000000000"));
+    }
+}
@@ -5,7 +5,12 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,9 +18,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.models.Account;
+import com.example.demo.models.AccountPage;
+import com.example.demo.models.Posting;
+import com.example.demo.models.PostingResult;
+import com.example.demo.models.TransferResult;
+import com.mongodb.MongoException;
 import com.example.demo.repository.AccountRepository;
 
 @ExtendWith(MockitoExtension.class)
@@ -24,6 +39,18 @@ class AccountServiceTest {
     @Mock
     private AccountRepository repo;
 
+    @Mock
+    private AccountCache cache;
+
+    @Mock
+    private AccountNumberAllocator allocator;
+
+    @Mock
+    private TransactionOperations tx;
+
+    @Mock
+    private HotAccounts hot;
+
     @InjectMocks
     private AccountService accountService;
 
@@ -57,6 +84,22 @@ class AccountServiceTest {
         verify(repo, times(1)).save(testAccount);
     }
 
+    @Test
+    void testCreate_IgnoresHotSlotsAndVersion() {
+
+        testAccount.setHotSlots(16);
+        testAccount.setVersion(7L);
+        when(repo.existsByAccountNumber(testAccount.getAccountNumber())).thenReturn(false);
+        when(repo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+
+        Account result = accountService.create(testAccount);
+
+
+        assertNull(result.getHotSlots());
+        assertNull(result.getVersion());
+    }
+
     @Test
     void testCreate_AccountAlreadyExists_ThrowsException() {
 
@@ -86,6 +129,7 @@ class AccountServiceTest {
         assertEquals("ACC001", result.getAccountNumber());
         assertEquals("John Doe", result.getHolderName());
         verify(repo, times(1)).findByAccountNumber("ACC001");
+        verify(cache, times(1)).put(testAccount);
     }
 
     @Test
@@ -100,6 +144,62 @@ class AccountServiceTest {
         verify(repo, times(1)).findByAccountNumber("INVALID");
     }
 
+    @Test
+    void testGetByAccountNumbers_SingleQueryForDistinctNumbers() {
+
+        when(repo.findByAccountNumberIn(anyCollection())).thenReturn(List.of(testAccount));
+
+
+        List<Account> result = accountService.getByAccountNumbers(List.of("ACC001", "ACC001", "ACC404"));
+
+
+        assertEquals(1, result.size());
+        verify(repo, times(1)).findByAccountNumberIn(argThat((Collection<String> c) ->
+            c.size() == 2 && c.contains("ACC001") && c.contains("ACC404")));
+        verify(repo, never()).findByAccountNumber(anyString());
+        verify(cache, times(1)).putAll(List.of(testAccount));
+    }
+
+    @Test
+    void testGetByAccountNumbers_OnlyMissesQueried() {
+
+        when(cache.get("ACC001")).thenReturn(testAccount);
+        when(repo.findByAccountNumberIn(List.of("ACC002"))).thenReturn(List.of());
+
+
+        List<Account> result = accountService.getByAccountNumbers(List.of("ACC001", "ACC002"));
+
+
+        assertEquals(List.of(testAccount), result);
+        verify(repo, times(1)).findByAccountNumberIn(List.of("ACC002"));
+    }
+
+    @Test
+    void testGetByAccountNumber_CacheHit_SkipsRepository() {
+
+        when(cache.get("ACC001")).thenReturn(testAccount);
+
+
+        Account result = accountService.getByAccountNumber("ACC001");
+
+
+        assertEquals("ACC001", result.getAccountNumber());
+        verify(repo, never()).findByAccountNumber(anyString());
+    }
+
+    @Test
+    void testGetByAccountNumbers_TooMany_ThrowsException() {
+
+        List<String> numbers = IntStream.rangeClosed(0, AccountService.MAX_LOOKUP_SIZE)
+            .mapToObj(i -> "ACC" + i).collect(Collectors.toList());
+
+
+        assertThrows(IllegalArgumentException.class,
+            () -> accountService.getByAccountNumbers(numbers)
+        );
+        verify(repo, never()).findByAccountNumberIn(anyCollection());
+    }
+
     @Test
     void testUpdateBalance_Success() {
 
@@ -122,6 +222,65 @@ class AccountServiceTest {
         assertEquals(newBalance, result.getBalance());
         verify(repo, times(1)).findByAccountNumber("ACC001");
         verify(repo, times(1)).save(any(Account.class));
+        verify(cache, never()).get(anyString());
+        verify(cache, times(1)).put(updatedAccount);
+    }
+
+    @Test
+    void testUpdateBalance_LegacyDocument_VersionInitialisedBeforeSave() {
+
+        when(repo.findByAccountNumber("ACC001")).thenReturn(Optional.of(testAccount));
+        when(repo.save(any(Account.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+
+        Account result = accountService.updateBalance("ACC001", 10.0);
+
+
+        assertEquals(0L, result.getVersion());
+        verify(repo, times(1)).initVersion("ACC001");
+    }
+
+    @Test
+    void testUpdateBalance_IfVersion_Success() {
+
+        testAccount.setVersion(4L);
+        when(repo.setBalanceIfVersion("ACC001", 10.0, 3L)).thenReturn(Optional.of(testAccount));
+
+
+        Account result = accountService.updateBalance("ACC001", 10.0, 3L);
+
+
+        assertEquals(4L, result.getVersion());
+        verify(repo, never()).save(any(Account.class));
+        verify(cache, times(1)).put(testAccount);
+    }
+
+    @Test
+    void testUpdateBalance_IfVersion_Stale_ThrowsPreconditionFailed() {
+
+        when(repo.setBalanceIfVersion("ACC001", 10.0, 3L)).thenReturn(Optional.empty());
+        when(repo.existsByAccountNumber("ACC001")).thenReturn(true);
+
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> accountService.updateBalance("ACC001", 10.0, 3L)
+        );
+        assertEquals(412, exception.getStatusCode().value());
+    }
+
+    @Test
+    void testUpdateBalance_IfVersion_HotAccount_ThrowsConflict() {
+
+        testAccount.setHotSlots(8);
+        when(repo.setBalanceIfVersion("ACC001", 10.0, 3L)).thenReturn(Optional.empty());
+        when(repo.findByAccountNumber("ACC001")).thenReturn(Optional.of(testAccount));
+
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> accountService.updateBalance("ACC001", 10.0, 3L)
+        );
+        assertEquals(409, exception.getStatusCode().value());
+        verifyNoInteractions(hot);
     }
 
     @Test
@@ -160,6 +319,69 @@ class AccountServiceTest {
         verify(repo, times(1)).save(any(Account.class));
     }
 
+    @Test
+    void testApplyBalanceDelta_Success() {
+
+        testAccount.setBalance(1250.0);
+        when(repo.applyBalanceDelta("ACC001", 250.0, false)).thenReturn(Optional.of(testAccount));
+
+
+        Account result = accountService.applyBalanceDelta("ACC001", 250.0, false);
+
+
+        assertEquals(1250.0, result.getBalance());
+        verify(repo, times(1)).applyBalanceDelta("ACC001", 250.0, false);
+        verify(cache, times(1)).put(testAccount);
+        verify(repo, never()).findByAccountNumber(anyString());
+        verify(repo, never()).save(any(Account.class));
+    }
+
+    @Test
+    void testApplyBalanceDelta_GuardRejected_ThrowsConflict() {
+
+        when(repo.applyBalanceDelta("ACC001", -5000.0, true)).thenReturn(Optional.empty());
+        when(repo.existsByAccountNumber("ACC001")).thenReturn(true);
+
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> accountService.applyBalanceDelta("ACC001", -5000.0, true)
+        );
+        assertEquals(409, exception.getStatusCode().value());
+    }
+
+    @Test
+    void testApplyBalanceDelta_AccountNotFound_ThrowsException() {
+
+        when(repo.applyBalanceDelta("INVALID", 100.0, false)).thenReturn(Optional.empty());
+        when(repo.existsByAccountNumber("INVALID")).thenReturn(false);
+
+
+        ResponseStatusException exception = assertThrows(ResponseStatusException.class,
+            () -> accountService.applyBalanceDelta("INVALID", 100.0, false)
+        );
+        assertEquals(404, exception.getStatusCode().value());
+    }
+
+    @Test
+    void testApplyBalanceDelta_HotAccount_GoesThroughSlots() {
+
+        testAccount.setHotSlots(8);
+        Account credited = new Account();
+        credited.setAccountNumber("ACC001");
+        credited.setBalance(1250.0);
+        when(repo.applyBalanceDelta("ACC001", 250.0, false)).thenReturn(Optional.empty());
+        when(repo.findByAccountNumber("ACC001")).thenReturn(Optional.of(testAccount));
+        when(hot.apply(testAccount, 250.0, false)).thenReturn(Optional.of(credited));
+
+
+        Account result = accountService.applyBalanceDelta("ACC001", 250.0, false);
+
+
+        assertEquals(1250.0, result.getBalance());
+        verify(cache, times(1)).put(credited);
+        verify(repo, never()).existsByAccountNumber(anyString());
+    }
+
     @Test
     void testChangeStatus_Success() {
 
@@ -171,8 +393,10 @@ class AccountServiceTest {
 
 
         assertNotNull(result);
+        assertFalse(testAccount.isActive());
         verify(repo, times(1)).findByAccountNumber("ACC001");
         verify(repo, times(1)).save(testAccount);
+        verify(cache, times(1)).put(testAccount);
     }
 
     @Test
@@ -187,4 +411,198 @@ class AccountServiceTest {
         verify(repo, times(1)).findByAccountNumber("INVALID");
         verify(repo, never()).save(any(Account.class));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testCreate_NoNumber_AllocatesWithoutExistsCheck() {
+
+        testAccount.setAccountNumber(null);
+        when(allocator.isEnabled()).thenReturn(true);
+        when(allocator.next()).thenReturn("ACC00010000005");
+        when(repo.save(testAccount)).thenReturn(testAccount);
+
+
+        Account result = accountService.create(testAccount);
+
+
+        assertEquals("ACC00010000005", result.getAccountNumber());
+        verify(repo, never()).existsByAccountNumber(anyString());
+    }
+
+    @Test
+    void testCreate_AllocatedNumberTaken_AllocatesAnother() {
+
+        testAccount.setAccountNumber(null);
+        when(allocator.isEnabled()).thenReturn(true);
+        when(allocator.next()).thenReturn("ACC00010000005", "ACC00010000013");
+        when(repo.save(testAccount))
+            .thenThrow(new DuplicateKeyException("dup"))
+            .thenReturn(testAccount);
+
+
+        Account result = accountService.create(testAccount);
+
+
+        assertEquals("ACC00010000013", result.getAccountNumber());
+        verify(repo, times(2)).save(testAccount);
+    }
+
+    private void runTransactionsInline() {
+        when(tx.execute(any())).thenAnswer(inv -> inv.getArgument(0, TransactionCallback.class).doInTransaction(null));
+    }
+
+    @Test
+    void testTransfer_Success() {
+
+        runTransactionsInline();
+        Account dest = account("ACC002");
+        when(repo.applyBalanceDelta("ACC001", -100.0, true)).thenReturn(Optional.of(testAccount));
+        when(repo.applyBalanceDelta("ACC002", 100.0, false)).thenReturn(Optional.of(dest));
+
+
+        TransferResult result = accountService.transfer("ACC001", "ACC002", 100.0);
+
+
+        assertSame(testAccount, result.from());
+        assertSame(dest, result.to());
+        verify(cache).put(dest);
+    }
+
+    @Test
+    void testTransfer_InsufficientFunds_NoCredit() {
+
+        runTransactionsInline();
+        when(repo.applyBalanceDelta("ACC001", -100.0, true)).thenReturn(Optional.empty());
+        when(repo.existsByAccountNumber("ACC001")).thenReturn(true);
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> accountService.transfer("ACC001", "ACC002", 100.0));
+
+
+        assertEquals(409, ex.getStatusCode().value());
+        verify(repo, never()).applyBalanceDelta(eq("ACC002"), anyDouble(), anyBoolean());
+    }
+
+    @Test
+    void testTransfer_TransientConflict_Retried() {
+
+        MongoException conflict = new MongoException(112, "WriteConflict");
+        conflict.addLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL);
+        when(tx.execute(any()))
+                .thenThrow(new DataIntegrityViolationException("conflict", conflict))
+                .thenReturn(new TransferResult(testAccount, account("ACC002")));
+
+
+        TransferResult result = accountService.transfer("ACC001", "ACC002", 100.0);
+
+
+        assertSame(testAccount, result.from());
+        verify(tx, times(2)).execute(any());
+    }
+
+    @Test
+    void testApplyPostings_AppliedInOrderAndOverdraftSkipped() {
+
+        runTransactionsInline();
+        testAccount.setVersion(4L);
+        Account dest = account("ACC002");
+        dest.setBalance(0.0);
+        when(repo.findByAccountNumberIn(any())).thenReturn(List.of(testAccount, dest));
+        when(repo.setBalancesIfVersion(anyList())).thenReturn(2);
+
+
+        PostingResult result = accountService.applyPostings(List.of(
+                new Posting("ACC001", "ACC002", 600.0),
+                new Posting("ACC001", null, 600.0),
+                new Posting(null, "ACC001", 100.0),
+                new Posting("ACC009", null, 1.0)));
+
+
+        assertEquals(Arrays.asList(null, "Insufficient funds", null, "Account not found"), result.errors());
+        assertEquals(500.0, testAccount.getBalance());
+        assertEquals(600.0, dest.getBalance());
+        assertEquals(5L, testAccount.getVersion());
+        verify(repo, times(1)).setBalancesIfVersion(List.of(testAccount, dest));
+        verify(cache).putAll(result.accounts());
+    }
+
+    @Test
+    void testApplyPostings_ConcurrentUpdate_Retried() {
+
+        runTransactionsInline();
+        when(repo.findByAccountNumberIn(any()))
+                .thenAnswer(inv -> List.of(account("ACC001", 100.0)));
+        when(repo.setBalancesIfVersion(anyList())).thenReturn(0, 1);
+
+
+        PostingResult result = accountService.applyPostings(List.of(new Posting("ACC001", null, 40.0)));
+
+
+        assertEquals(60.0, result.accounts().get(0).getBalance());
+        verify(repo, times(2)).findByAccountNumberIn(any());
+    }
+
+    @Test
+    void testApplyPostings_ConcurrentUpdateEveryTime_GivesUp() {
+
+        runTransactionsInline();
+        when(repo.findByAccountNumberIn(any()))
+                .thenAnswer(inv -> List.of(account("ACC001", 100.0)));
+        when(repo.setBalancesIfVersion(anyList())).thenReturn(0);
+
+
+        assertThrows(OptimisticLockingFailureException.class,
+                () -> accountService.applyPostings(List.of(new Posting("ACC001", null, 40.0))));
+
+        verify(repo, times(AccountService.MAX_TRANSFER_ATTEMPTS)).setBalancesIfVersion(anyList());
+        verify(cache, never()).putAll(anyList());
+    }
+
+    private Account account(String number, double balance) {
+        Account a = account(number);
+        a.setBalance(balance);
+        return a;
+    }
+
+    private Account account(String number) {
+        Account a = new Account();
+        a.setAccountNumber(number);
+        return a;
+    }
+
+    @Test
+    void testListAccounts_MorePages_ReturnsCursor() {
+
+        when(repo.findPage("ACC001", true, 3)).thenReturn(List.of(
+                account("ACC002"), account("ACC003"), account("ACC004")));
+
+
+        AccountPage page = accountService.listAccounts("ACC001", true, 2);
+
+
+        assertEquals(2, page.accounts().size());
+        assertEquals("ACC003", page.next());
+    }
+
+    @Test
+    void testListAccounts_LastPage_NoCursor() {
+
+        when(repo.findPage(null, null, 3)).thenReturn(List.of(account("ACC001")));
+
+
+        AccountPage page = accountService.listAccounts(null, null, 2);
+
+
+        assertEquals(1, page.accounts().size());
+        assertNull(page.next());
+    }
+
+    @Test
+    void testListAccounts_LimitTooLarge_ThrowsException() {
+
+        assertThrows(IllegalArgumentException.class,
+                () -> accountService.listAccounts(null, null, AccountService.MAX_PAGE_SIZE + 1));
+
+        verify(repo, never()).findPage(any(), any(), anyInt());
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.demo.services;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.demo.models.Account;
+import com.example.demo.repository.AccountRepository;
+
+@ExtendWith(MockitoExtension.class)
+class HotAccountsTest {
+
+    @Mock
+    private AccountRepository repo;
+
+    @Mock
+    private TransactionOperations tx;
+
+    private HotAccounts hot;
+
+    private Account account;
+
+    @BeforeEach
+    void setUp() {
+        hot = new HotAccounts(repo, tx, 64, 60);
+        account = new Account();
+        account.setAccountNumber("ACC001");
+        account.setBalance(100.0);
+        account.setHotSlots(4);
+    }
+
+    @Test
+    void testApply_CreditGoesToOneSlotWithoutTransaction() {
+
+        when(repo.slotTotal("ACC001")).thenReturn(50.25);
+
+
+        Account result = hot.apply(account, 50.25, false).orElseThrow();
+
+
+        assertEquals(150.25, result.getBalance());
+        verify(repo, times(1)).creditSlot(eq("ACC001"), intThat(slot -> slot >= 0 && slot < 4), eq(50.25));
+        verify(repo, never()).applyHotDelta(anyString(), anyDouble());
+        verifyNoInteractions(tx);
+    }
+
+    @Test
+    void testApply_DebitCheckedAgainstBaseAndSlots() {
+
+        when(tx.execute(any())).thenAnswer(inv -> inv.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(repo.slotTotal("ACC001")).thenReturn(30.0);
+        when(repo.findByAccountNumber("ACC001")).thenReturn(Optional.of(account));
+
+
+        Optional<Account> result = hot.apply(account, -150.0, true);
+
+
+        assertTrue(result.isEmpty());
+        verify(repo, never()).applyHotDelta(anyString(), anyDouble());
+    }
+
+    @Test
+    void testSetBalance_NoLongerHot_KeepsSlots() {
+
+        when(tx.execute(any())).thenAnswer(inv -> inv.getArgument(0, TransactionCallback.class).doInTransaction(null));
+        when(repo.setHotBalance("ACC001", 500.0)).thenReturn(Optional.empty());
+
+
+        Optional<Account> result = hot.setBalance("ACC001", 500.0);
+
+
+        assertTrue(result.isEmpty());
+        verify(repo, never()).drainSlots(anyString());
+    }
+
+    @Test
+    void testSweep_FoldsLateCreditOfAccountNoLongerHot() {
+
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(tx).executeWithoutResult(any());
+        when(repo.findSlottedAccountNumbers()).thenReturn(List.of("ACC001"));
+        when(repo.drainSlots("ACC001")).thenReturn(25.0);
+        when(repo.applyHotDelta("ACC001", 25.0)).thenReturn(Optional.empty());
+        when(repo.applyBalanceDelta("ACC001", 25.0, false)).thenReturn(Optional.of(account));
+
+
+        hot.sweep();
+
+
+        verify(repo, times(1)).applyBalanceDelta("ACC001", 25.0, false);
+    }
+
+    @Test
+    void testConfigure_TooManySlots_ThrowsException() {
+
+        assertThrows(IllegalArgumentException.class, () -> hot.configure("ACC001", 65));
+        verifyNoInteractions(repo, tx);
+    }
+}
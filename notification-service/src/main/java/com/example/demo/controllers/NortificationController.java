@@ -1,5 +1,12 @@
 package com.example.demo.controllers;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
@@ -9,6 +16,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.example.demo.models.NortificationPayLoad;
+import com.example.demo.services.NotificationDeduplicator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.http.HttpServletRequest;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -16,13 +27,55 @@ public class NortificationController {
 
     private static final Logger log = LoggerFactory.getLogger(NortificationController.class);
 
+    private final NotificationDeduplicator deduplicator;
+    private final ObjectMapper mapper;
+
+    public NortificationController(NotificationDeduplicator deduplicator, ObjectMapper mapper) {
+        this.deduplicator = deduplicator;
+        this.mapper = mapper;
+    }
+
     @PostMapping("/send")
     public ResponseEntity<Void> send(@RequestBody NortificationPayLoad payload) {
+        deliver(payload);
+        return ResponseEntity.accepted().build();
+    }
+
+    @PostMapping(value = "/send-batch", consumes = "application/json")
+    public ResponseEntity<Map<String, Integer>> sendBatch(@RequestBody List<NortificationPayLoad> payloads) {
+        int accepted = 0;
+        for (NortificationPayLoad payload : payloads)
+            if (deliver(payload)) accepted++;
+        return summary(accepted, payloads.size() - accepted);
+    }
+
+    // one payload per line, read as it arrives
+    @PostMapping(value = "/send-batch", consumes = "application/x-ndjson")
+    public ResponseEntity<Map<String, Integer>> sendBatchStream(HttpServletRequest request) throws IOException {
+        int accepted = 0, duplicates = 0;
+        BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        String line;
+        while ((line = in.readLine()) != null) {
+            if (line.isBlank()) continue;
+            if (deliver(mapper.readValue(line, NortificationPayLoad.class))) accepted++;
+            else duplicates++;
+        }
+        return summary(accepted, duplicates);
+    }
+
+    private boolean deliver(NortificationPayLoad payload) {
+        if (!deduplicator.firstSeen(payload.getTransactionId(), payload.getTo(), payload.getMessage())) {
+            log.debug("Dropping duplicate notification: txn={} to={}", payload.getTransactionId(), payload.getTo());
+            return false;
+        }
         log.info("NOTIFICATION: txn={} message='{}' to={}",
                 payload.getTransactionId(),
                 payload.getMessage(),
                 payload.getTo());
+        return true;
+    }
 
-        return ResponseEntity.accepted().build();
+    private static ResponseEntity<Map<String, Integer>> summary(int accepted, int duplicates) {
+        return ResponseEntity.accepted().body(Map.of("accepted", accepted, "duplicates", duplicates));
     }
 }
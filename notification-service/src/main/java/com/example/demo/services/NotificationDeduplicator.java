@@ -0,0 +1,43 @@
+package com.example.demo.services;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Remembers recently accepted (transactionId, recipient, message) keys so a sender retrying
+ * a delivery does not produce a second message. The message is part of the key because the
+ * recipient is a holder name: both sides of a transfer between two accounts of one holder
+ * go to the same recipient. Bounded both by age and by size; a duplicate arriving after its
+ * key has been evicted is delivered again.
+ */
+@Component
+public class NotificationDeduplicator {
+
+    private final long windowNanos;
+    private final int maxEntries;
+    // insertion order is arrival order, so the eldest entry is always the first to expire
+    private final LinkedHashMap<String, Long> seen = new LinkedHashMap<>();
+
+    public NotificationDeduplicator(@Value("${notifications.dedup.window-seconds:600}") long windowSeconds,
+                                    @Value("${notifications.dedup.max-entries:100000}") int maxEntries) {
+        this.windowNanos = windowSeconds * 1_000_000_000L;
+        this.maxEntries = maxEntries;
+    }
+
+    // true the first time a key is seen within the window
+    public synchronized boolean firstSeen(String transactionId, String to, String message) {
+        if (transactionId == null) return true;
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Long>> eldest = seen.entrySet().iterator();
+        while (eldest.hasNext()) {
+            Map.Entry<String, Long> e = eldest.next();
+            if (now - e.getValue() < windowNanos && seen.size() < maxEntries) break;
+            eldest.remove();
+        }
+        return seen.putIfAbsent(transactionId + '\u0000' + to + '\u0000' + message, now) == null;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.demo.controllers;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.example.demo.services.NotificationDeduplicator;
+
+@WebMvcTest(NortificationController.class)
+@Import(NotificationDeduplicator.class)
+class NortificationControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void testSend_Accepted() throws Exception {
+
+        mockMvc.perform(post("/api/notifications/send")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"transactionId\":\"TXN-1\",\"message\":\"Deposit of 100.0 completed.\",\"to\":\"John Doe\"}"))
+                .andExpect(status().isAccepted());
+    }
+
+    @Test
+    void testSendBatch_DropsDuplicates() throws Exception {
+
+        String batch = """
+            [{"transactionId":"TXN-2","message":"You sent","to":"John Doe"},
+             {"transactionId":"TXN-2","message":"You received","to":"Jane Smith"},
+             {"transactionId":"TXN-2","message":"You sent","to":"John Doe"}]
+            """;
+
+        mockMvc.perform(post("/api/notifications/send-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.duplicates").value(1));
+    }
+
+    @Test
+    void testSendBatch_OwnAccountTransfer_KeepsBothSides() throws Exception {
+
+        String batch = """
+            [{"transactionId":"TXN-5","message":"You sent","to":"John Doe"},
+             {"transactionId":"TXN-5","message":"You received","to":"John Doe"}]
+            """;
+
+        mockMvc.perform(post("/api/notifications/send-batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(batch))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.duplicates").value(0));
+    }
+
+    @Test
+    void testSendBatch_Ndjson_DropsRetriedPayloads() throws Exception {
+
+        String first = "{\"transactionId\":\"TXN-3\",\"message\":\"Withdrawal\",\"to\":\"John Doe\"}\n";
+
+        mockMvc.perform(post("/api/notifications/send-batch")
+                .contentType("application/x-ndjson")
+                .content(first))
+                .andExpect(jsonPath("$.accepted").value(1));
+
+        mockMvc.perform(post("/api/notifications/send-batch")
+                .contentType("application/x-ndjson")
+                .content(first + "{\"transactionId\":\"TXN-4\",\"message\":\"Deposit\",\"to\":\"John Doe\"}\n"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1));
+    }
+}
@@ -1,12 +1,15 @@
 package com.example.demo.clients;
 
+import java.util.List;
 import java.util.Map;
 
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
 
 
 @FeignClient(name = "account-service")
@@ -15,7 +18,24 @@ public interface AccountClient {
   @GetMapping("/api/accounts/{accountNumber}")
   AccountDTO getAccount(@PathVariable("accountNumber") String accountNumber);
 
+  // ordered by account number; pass the previous page's next as after
+  @GetMapping("/api/accounts")
+  AccountPageDTO listAccounts(@RequestParam(value = "after", required = false) String after,
+                              @RequestParam("limit") int limit);
+
+  // debit and credit in one account-service transaction; 409 when the source would overdraw
+  @PostMapping("/api/accounts/transfer")
+  TransferResultDTO transfer(@RequestBody Map<String,Object> body);
+
+  // applied in order in one account-service transaction; rejected postings are reported, not thrown
+  @PostMapping("/api/accounts/postings")
+  PostingResultDTO applyPostings(@RequestBody List<Map<String,Object>> postings);
+
   @PutMapping("/api/accounts/{accountNumber}/balance")
   AccountDTO updateBalance(@PathVariable("accountNumber") String accountNumber,
                            @RequestBody Map<String,Object> body);
+
+  @PostMapping("/api/accounts/{accountNumber}/balance/delta")
+  AccountDTO applyBalanceDelta(@PathVariable("accountNumber") String accountNumber,
+                               @RequestBody Map<String,Object> body);
 }
@@ -0,0 +1,16 @@
+package com.example.demo.clients;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountPageDTO {
+    private List<AccountDTO> accounts;
+    // cursor for the following page, null on the last page
+    private String next;
+}
@@ -1,5 +1,7 @@
 package com.example.demo.clients;
 
+import java.util.List;
+
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.PostMapping;
 
@@ -8,4 +10,8 @@ import org.springframework.web.bind.annotation.PostMapping;
 public interface NotificationClient {
   @PostMapping("/api/notifications/send")
   void sendNotification(NotificationPayload payload);
+
+  // one request for many messages; notification-service drops (transactionId, to) repeats
+  @PostMapping("/api/notifications/send-batch")
+  void sendNotifications(List<NotificationPayload> payloads);
 }
@@ -0,0 +1,16 @@
+package com.example.demo.clients;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PostingResultDTO {
+    // null where the posting at the same index was applied
+    private List<String> errors;
+    private List<AccountDTO> accounts;
+}
@@ -0,0 +1,14 @@
+package com.example.demo.clients;
+
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferResultDTO {
+    private AccountDTO from;
+    private AccountDTO to;
+}
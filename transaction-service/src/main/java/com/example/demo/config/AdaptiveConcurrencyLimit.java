@@ -0,0 +1,99 @@
+package com.example.demo.config;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gradient concurrency limit, after Netflix's Gradient2. A long-term average of request
+ * latency is the no-queueing baseline and a short one is the current latency. While the
+ * two agree the limit grows by about sqrt(limit) per sample; once current latency exceeds
+ * tolerance times the baseline, requests are queueing somewhere downstream and the limit
+ * shrinks in proportion, by at most half per sample.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final int LONG_WINDOW = 600;
+    private static final int SHORT_WINDOW = 10;
+    private static final double SMOOTHING = 0.2;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final AtomicInteger inflight = new AtomicInteger();
+    private volatile int limit;
+
+    // guarded by this
+    private double estimate;
+    private final Average longRtt = new Average(LONG_WINDOW);
+    private final Average shortRtt = new Average(SHORT_WINDOW);
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double tolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.estimate = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    public int limit() {
+        return limit;
+    }
+
+    public int inflight() {
+        return inflight.get();
+    }
+
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inflight.get();
+            if (current >= limit) return false;
+            if (inflight.compareAndSet(current, current + 1)) return true;
+        }
+    }
+
+    // rttNanos is how long the request held its slot
+    public void release(long rttNanos) {
+        int inUse = inflight.getAndDecrement();
+        update(rttNanos, inUse);
+    }
+
+    private synchronized void update(long rttNanos, int inUse) {
+        double recent = shortRtt.add(rttNanos);
+        double baseline = longRtt.add(rttNanos);
+        // after a long overload the baseline has crept up; let it recover toward recent latency
+        if (baseline / recent > 2) longRtt.scale(0.95);
+
+        // with most of the limit unused, latency says nothing about where the limit should be
+        if (inUse < estimate / 2) return;
+
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * baseline / recent));
+        double next = estimate * gradient + Math.sqrt(estimate);
+        next = estimate * (1 - SMOOTHING) + next * SMOOTHING;
+        estimate = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimate;
+    }
+
+    // exponential moving average, plain mean until the window has filled once
+    private static final class Average {
+        private final int window;
+        private int count;
+        private double value;
+
+        Average(int window) {
+            this.window = window;
+        }
+
+        double add(double sample) {
+            if (count < window) {
+                count++;
+                value += (sample - value) / count;
+            } else {
+                value += (sample - value) * 2 / (window + 1);
+            }
+            return value;
+        }
+
+        void scale(double factor) {
+            value *= factor;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.config;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Load shedding in front of the transaction API. Requests beyond the adaptive in-flight
+ * limit are turned away at once with 503 and Retry-After, before they take a Feign
+ * connection or wait on an account lane, so the requests that are admitted keep their
+ * latency and throughput levels off instead of collapsing. Statement and report downloads
+ * and batches run long by design and are bounded elsewhere, so they are not counted.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final String API = "/api/transactions/";
+
+    private final boolean enabled;
+    private final String retryAfter;
+    private final AdaptiveConcurrencyLimit limit;
+    private final Counter rejected;
+
+    public ConcurrencyLimitFilter(@Value("${transactions.limiter.enabled:true}") boolean enabled,
+                                  @Value("${transactions.limiter.initial-limit:20}") int initialLimit,
+                                  @Value("${transactions.limiter.min-limit:4}") int minLimit,
+                                  @Value("${transactions.limiter.max-limit:200}") int maxLimit,
+                                  @Value("${transactions.limiter.rtt-tolerance:1.5}") double tolerance,
+                                  @Value("${transactions.limiter.retry-after-seconds:1}") int retryAfterSeconds,
+                                  MeterRegistry registry) {
+        this.enabled = enabled;
+        this.retryAfter = Integer.toString(retryAfterSeconds);
+        this.limit = new AdaptiveConcurrencyLimit(initialLimit, minLimit, maxLimit, tolerance);
+
+        Gauge.builder("transactions.limiter.limit", limit, AdaptiveConcurrencyLimit::limit)
+                .description("Current adaptive in-flight request limit").register(registry);
+        Gauge.builder("transactions.limiter.inflight", limit, AdaptiveConcurrencyLimit::inflight)
+                .description("Requests currently holding a slot").register(registry);
+        this.rejected = Counter.builder("transactions.limiter.rejected")
+                .description("Requests shed because the limit was reached").register(registry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        return !enabled || !path.startsWith(API)
+                || path.endsWith("/statement") || path.endsWith("/file") || path.endsWith("/report")
+                || path.endsWith("/batch");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!limit.tryAcquire()) {
+            rejected.increment();
+            response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfter);
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+}
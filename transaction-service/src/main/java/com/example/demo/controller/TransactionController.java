@@ -1,52 +1,217 @@
 package com.example.demo.controller;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Supplier;
 
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import com.example.demo.models.AccountSummary;
+import com.example.demo.models.BatchResult;
+import com.example.demo.models.ReconciliationRun;
+import com.example.demo.models.StatementJob;
 import com.example.demo.models.Transaction;
+import com.example.demo.models.TransactionPage;
+import com.example.demo.service.AccountSummaryService;
+import com.example.demo.service.IdempotentExecutor;
+import com.example.demo.service.ReconciliationService;
+import com.example.demo.service.StatementFormat;
+import com.example.demo.service.StatementService;
+import com.example.demo.service.TransactionBatchService;
 import com.example.demo.service.TransactionService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
 
 @RestController
 @RequestMapping("/api/transactions")
 public class TransactionController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    private static final String NEXT_CURSOR = "X-Next-Cursor";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+
     private final TransactionService service;
+    private final IdempotentExecutor idempotent;
+    private final StatementService statements;
+    private final TransactionBatchService batches;
+    private final AccountSummaryService summaries;
+    private final ReconciliationService reconciliation;
 
-    public TransactionController(TransactionService service) {
+    public TransactionController(TransactionService service, IdempotentExecutor idempotent,
+                                 StatementService statements, TransactionBatchService batches,
+                                 AccountSummaryService summaries, ReconciliationService reconciliation) {
         this.service = service;
+        this.idempotent = idempotent;
+        this.statements = statements;
+        this.batches = batches;
+        this.summaries = summaries;
+        this.reconciliation = reconciliation;
     }
 
     @PostMapping("/deposit")
-    public Transaction deposit(@RequestBody Map<String,Object> body) {
-        return service.deposit(
+    public Transaction deposit(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key,
+                               @RequestBody Map<String,Object> body) {
+        return once("deposit", key, body, () -> service.deposit(
                 (String) body.get("accountNumber"),
                 ((Number) body.get("amount")).doubleValue()
-        );
+        ));
     }
 
     @PostMapping("/withdraw")
-    public Transaction withdraw(@RequestBody Map<String,Object> body) {
-        return service.withdraw(
+    public Transaction withdraw(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key,
+                                @RequestBody Map<String,Object> body) {
+        return once("withdraw", key, body, () -> service.withdraw(
                 (String) body.get("accountNumber"),
                 ((Number) body.get("amount")).doubleValue()
-        );
+        ));
     }
 
     @PostMapping("/transfer")
-    public Transaction transfer(@RequestBody Map<String,Object> body) {
-        return service.transfer(
+    public Transaction transfer(@RequestHeader(value = IDEMPOTENCY_KEY, required = false) String key,
+                                @RequestBody Map<String,Object> body) {
+        return once("transfer", key, body, () -> service.transfer(
                 (String) body.get("fromAccount"),
                 (String) body.get("toAccount"),
                 ((Number) body.get("amount")).doubleValue()
-        );
+        ));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchResult batch(@RequestBody List<Map<String,Object>> items) {
+        return batches.submit(items);
+    }
+
+    @PostMapping(value = "/batch", consumes = "application/x-ndjson")
+    public BatchResult batchNdjson(HttpServletRequest request) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(request.getInputStream(), StandardCharsets.UTF_8));
+        return batches.submitNdjson(in);
+    }
+
+    // resume picks a failed or interrupted run up from its last checkpoint
+    @PostMapping("/reconciliations")
+    public ResponseEntity<ReconciliationRun> reconcile(@RequestParam(required = false) String resume) {
+        ReconciliationRun run = resume == null ? reconciliation.startRun() : reconciliation.resumeRun(resume);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transactions/reconciliations/" + run.getId()))
+                .body(run);
+    }
+
+    @GetMapping("/reconciliations/{id}")
+    public ReconciliationRun reconciliation(@PathVariable String id) {
+        return reconciliation.getRun(id);
+    }
+
+    // the discrepancies found so far, one JSON object per line
+    @GetMapping("/reconciliations/{id}/report")
+    public void reconciliationReport(@PathVariable String id, HttpServletResponse response) throws IOException {
+        Path file = reconciliation.report(id);
+        response.setContentType("application/x-ndjson");
+        Files.copy(file, response.getOutputStream());
+    }
+
+    private Transaction once(String operation, String key, Map<String,Object> body, Supplier<Transaction> action) {
+        if (key == null || key.isBlank())
+            return action.get();
+        return idempotent.execute(operation, key, new TreeMap<>(body).toString(), action);
+    }
+
+    // operations accepted as PENDING in degraded mode are polled here for their outcome
+    @GetMapping("/{id}")
+    public Transaction getTxn(@PathVariable String id) {
+        return service.getTransaction(id);
     }
 
+    // newest first; the cursor for the next (older) page is returned in X-Next-Cursor
     @GetMapping("/account/{number}")
-    public List<Transaction> getTxns(@PathVariable String number) {
-        return service.getTransactionsForAccount(number);
+    public ResponseEntity<List<Transaction>> getTxns(@PathVariable String number,
+                                                     @RequestParam(required = false) String before,
+                                                     @RequestParam(defaultValue = "100") int limit) {
+        TransactionPage page = service.getTransactionsForAccount(number, before, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.next() != null)
+            response.header(NEXT_CURSOR, page.next());
+        return response.body(page.transactions());
+    }
+
+    @GetMapping("/account/{number}/summary")
+    public AccountSummary summary(@PathVariable String number,
+                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                  @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return summaries.getSummary(number, from, to);
+    }
+
+    @GetMapping("/account/{number}/statement")
+    public void statement(@PathVariable String number,
+                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                          @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                          @RequestParam(defaultValue = "ndjson") String format,
+                          HttpServletResponse response) throws IOException {
+        StatementFormat fmt = StatementFormat.of(format);
+        response.setContentType(fmt.contentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"statement-" + number + "-" + from + "-" + to + "." + fmt.extension() + "\"");
+        statements.write(number, from, to, fmt, response.getOutputStream());
+    }
+
+    @PostMapping("/account/{number}/statement/jobs")
+    public ResponseEntity<StatementJob> exportStatement(@PathVariable String number,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                        @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                        @RequestParam(defaultValue = "ndjson") String format) {
+        StatementJob job = statements.submit(number, from, to, StatementFormat.of(format));
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/transactions/statements/" + job.getId()))
+                .body(job);
+    }
+
+    @GetMapping("/statements/{id}")
+    public StatementJob statementJob(@PathVariable String id) {
+        return statements.getJob(id);
+    }
+
+    // hands the file to Tomcat's sendfile when the connector supports it, else copies it via transferTo
+    @GetMapping("/statements/{id}/file")
+    public void statementFile(@PathVariable String id,
+                              HttpServletRequest request,
+                              HttpServletResponse response) throws IOException {
+        StatementJob job = statements.readyJob(id);
+        Path file = job.getFile();
+        StatementFormat fmt = StatementFormat.of(job.getFormat());
+        long size = Files.size(file);
+        response.setContentType(fmt.contentType());
+        response.setContentLengthLong(size);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                "attachment; filename=\"" + file.getFileName() + "\"");
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute("org.apache.tomcat.sendfile.filename", file.toAbsolutePath().toString());
+            request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+            request.setAttribute("org.apache.tomcat.sendfile.end", size);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = 0;
+            while (position < size)
+                position += channel.transferTo(position, size - position, out);
+        }
     }
 }
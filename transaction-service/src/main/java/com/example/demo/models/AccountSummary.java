@@ -0,0 +1,13 @@
+package com.example.demo.models;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// totals over a date range; opening/closing are null when no day in the range has a known balance
+public record AccountSummary(String accountNumber, LocalDate from, LocalDate to,
+                             long depositCount, double depositTotal,
+                             long withdrawCount, double withdrawTotal,
+                             long transferInCount, double transferInTotal,
+                             long transferOutCount, double transferOutTotal,
+                             Double openingBalance, Double closingBalance,
+                             List<DailySummary> days) {}
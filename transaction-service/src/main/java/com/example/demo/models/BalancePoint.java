@@ -0,0 +1,27 @@
+package com.example.demo.models;
+
+import java.time.Instant;
+
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// A balance as of a transaction. Field order matters: summaries keep the earliest and
+// latest point with $min/$max, which compare (at, txn) before the balance.
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BalancePoint {
+  @Field("at")
+  private Instant at;
+  @Field("txn")
+  private String transactionId;
+  @Field("b")
+  @ValueConverter(MinorUnitsConverter.class)
+  private Double balance;
+}
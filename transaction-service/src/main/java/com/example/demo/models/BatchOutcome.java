@@ -0,0 +1,4 @@
+package com.example.demo.models;
+
+// status is SUCCESS, FAILED (recorded, account-service unreachable) or REJECTED (not recorded)
+public record BatchOutcome(int index, String transactionId, String status, String error) {}
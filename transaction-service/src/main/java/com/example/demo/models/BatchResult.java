@@ -0,0 +1,5 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+public record BatchResult(int succeeded, int rejected, int failed, List<BatchOutcome> results) {}
@@ -0,0 +1,51 @@
+package com.example.demo.models;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// Per-account, per-day (UTC) totals of successful transactions, maintained by upserts.
+@Document(collection = "daily_summaries")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class DailySummary {
+  // "<account>:<yyyy-MM-dd>", so an account's days form one contiguous _id range
+  @Id
+  private String id;
+  @Field("acct")
+  private String accountNumber;
+  @Field("day")
+  private String day;
+  @Field("depN")
+  private long depositCount;
+  @Field("depT")
+  @ValueConverter(MinorUnitsConverter.class)
+  private double depositTotal;
+  @Field("wdN")
+  private long withdrawCount;
+  @Field("wdT")
+  @ValueConverter(MinorUnitsConverter.class)
+  private double withdrawTotal;
+  @Field("tinN")
+  private long transferInCount;
+  @Field("tinT")
+  @ValueConverter(MinorUnitsConverter.class)
+  private double transferInTotal;
+  @Field("toutN")
+  private long transferOutCount;
+  @Field("toutT")
+  @ValueConverter(MinorUnitsConverter.class)
+  private double transferOutTotal;
+  @Field("open")
+  private BalancePoint opening;
+  @Field("close")
+  private BalancePoint closing;
+}
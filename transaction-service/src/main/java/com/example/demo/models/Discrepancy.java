@@ -0,0 +1,7 @@
+package com.example.demo.models;
+
+// One line of a reconciliation report. expected is the balance implied by the newest recorded
+// post-transaction balance plus everything after it; driftAfter, when set, is the newest
+// transaction whose recorded balance disagrees with the history that follows it.
+public record Discrepancy(String accountNumber, double actual, double expected, double difference,
+                          String driftAfter, long transactions) {}
@@ -0,0 +1,31 @@
+package com.example.demo.models;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// One per Idempotency-Key; result is null while the first request is still running, or
+// for good once it failed after money may have moved (outcomeUnknown).
+@Document(collection = "idempotency_keys")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class IdempotencyRecord {
+  @Id
+  private String key;
+  private String fingerprint;
+  @Indexed(expireAfter = "24h")
+  private Instant startedAt;
+  private Transaction result;
+  private boolean outcomeUnknown;
+}
@@ -0,0 +1,8 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+import com.example.demo.clients.NotificationPayload;
+
+// one journal record: a transaction and the notifications that commit with it
+public record JournalEntry(Transaction transaction, List<NotificationPayload> notifications) {}
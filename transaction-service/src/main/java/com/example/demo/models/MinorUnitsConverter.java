@@ -0,0 +1,16 @@
+package com.example.demo.models;
+
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+// Amounts are held as doubles in the API but persisted as long minor units (paise).
+public class MinorUnitsConverter implements MongoValueConverter<Double, Long> {
+
+  public static long toMinor(double amount) { return Math.round(amount * 100); }
+
+  @Override
+  public Double read(Long value, MongoConversionContext context) { return value / 100.0; }
+
+  @Override
+  public Long write(Double value, MongoConversionContext context) { return toMinor(value); }
+}
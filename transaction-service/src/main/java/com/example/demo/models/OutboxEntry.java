@@ -0,0 +1,37 @@
+package com.example.demo.models;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// A notification waiting to be delivered; deleted once notification-service accepts it.
+@Document(collection = "notification_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class OutboxEntry {
+  @Id
+  private String id;
+  private String transactionId;
+  private String message;
+  private String to;
+  @Indexed
+  private Instant createdAt;
+  @Indexed
+  private Instant nextAttemptAt;
+  private int attempts;
+  private String lastError;
+  // set by the relay instance that currently holds the entry
+  @Indexed(sparse = true)
+  private String claim;
+}
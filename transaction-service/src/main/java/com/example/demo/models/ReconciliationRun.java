@@ -0,0 +1,37 @@
+package com.example.demo.models;
+
+import java.time.Instant;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+// A ledger-vs-balance reconciliation; saved after every checkpoint so it can be resumed.
+@Document(collection = "reconciliation_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class ReconciliationRun {
+
+  public enum Status { RUNNING, COMPLETED, FAILED }
+
+  @Id
+  private String id;
+  private Status status;
+  private Instant startedAt;
+  private Instant finishedAt;
+  // last account number covered by the report; null before the first partition
+  private String checkpoint;
+  // length of the report file at the checkpoint, so a resumed run can cut off anything after it
+  private long reportBytes;
+  private long accounts;
+  private long skipped;
+  private long transactions;
+  private long discrepancies;
+  private String error;
+}
@@ -0,0 +1,40 @@
+package com.example.demo.models;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import lombok.Getter;
+import lombok.Setter;
+
+// An asynchronous statement export; tracked in memory by the instance that runs it.
+@Getter
+@Setter
+public class StatementJob {
+
+  public enum Status { QUEUED, RUNNING, READY, FAILED }
+
+  private final String id;
+  private final String accountNumber;
+  private final LocalDate from;
+  private final LocalDate to;
+  private final String format;
+  private final Instant createdAt;
+  private volatile Status status = Status.QUEUED;
+  private volatile long rows;
+  private volatile Instant expiresAt;
+  private volatile String error;
+  @JsonIgnore
+  private volatile Path file;
+
+  public StatementJob(String id, String accountNumber, LocalDate from, LocalDate to, String format, Instant createdAt) {
+    this.id = id;
+    this.accountNumber = accountNumber;
+    this.from = from;
+    this.to = to;
+    this.format = format;
+    this.createdAt = createdAt;
+  }
+}
@@ -3,7 +3,14 @@ package com.example.demo.models;
 import java.time.Instant;
 
 import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.Transient;
+import org.springframework.data.convert.ValueConverter;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
@@ -12,22 +19,52 @@ import lombok.Setter;
 import lombok.ToString;
 
 @Document(collection = "transactions")
+// history is read newest first per account, with _id as the tie-breaker of the keyset cursor
+@CompoundIndexes({
+    @CompoundIndex(name = "src_ts", def = "{'src': 1, 'ts': -1, '_id': -1}"),
+    @CompoundIndex(name = "dst_ts", def = "{'dst': 1, 'ts': -1, '_id': -1}"),
+    // only PENDING (3) documents are indexed, so the replay queue stays small
+    @CompoundIndex(name = "pending", def = "{'st': 1, '_id': 1}", partialFilter = "{'st': 3}")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @ToString
 public class Transaction {
+  // the transaction id ("TXN-...") is the document id
   @Id 
   private String id;
-  private String transactionId;
+  @Field("t")
+  @ValueConverter(TransactionCodes.TypeConverter.class)
   private String type; // DEPOSIT, WITHDRAW, TRANSFER
+  @Field("a")
+  @ValueConverter(MinorUnitsConverter.class)
   private double amount;
+  @Field("ts")
   private Instant timestamp;
-  private String status; // SUCCESS/FAILED
+  @Field("st")
+  @ValueConverter(TransactionCodes.StatusConverter.class)
+  private String status; // SUCCESS/FAILED/PENDING
+  @Field("src")
   private String sourceAccount;
+  @Field("dst")
   private String destinationAccount;
-  // getters/setters
-  
-  
+  // account balances right after this transaction; null when not known (failed or older records)
+  @Field("sb")
+  @ValueConverter(MinorUnitsConverter.class)
+  private Double sourceBalance;
+  @Field("db")
+  @ValueConverter(MinorUnitsConverter.class)
+  private Double destinationBalance;
+  // set on a FAILED result when account-service may have applied it anyway (a timeout, a
+  // 5xx, or a failure after the call); never stored
+  @Transient
+  @JsonIgnore
+  private boolean outcomeUnknown;
+
+  @Transient
+  public String getTransactionId() { return id; }
+
+  public void setTransactionId(String transactionId) { this.id = transactionId; }
 }
@@ -0,0 +1,49 @@
+package com.example.demo.models;
+
+import java.util.Map;
+
+import org.springframework.data.mongodb.core.convert.MongoConversionContext;
+import org.springframework.data.mongodb.core.convert.MongoValueConverter;
+
+// Transaction type and status are persisted as small int codes. Codes are
+// append-only: never renumber an existing entry.
+public final class TransactionCodes {
+
+  public static final Map<String, Integer> TYPES = Map.of("DEPOSIT", 1, "WITHDRAW", 2, "TRANSFER", 3);
+  public static final Map<String, Integer> STATUSES = Map.of("SUCCESS", 1, "FAILED", 2, "PENDING", 3);
+
+  private TransactionCodes() {}
+
+  static Integer encode(Map<String, Integer> codes, String name) {
+    Integer code = codes.get(name);
+    if (code == null) throw new IllegalArgumentException("Unknown transaction code: " + name);
+    return code;
+  }
+
+  // strings are accepted so documents written before the compact layout still read
+  static String decode(Map<String, Integer> codes, Object stored) {
+    if (stored instanceof String name) return name;
+    int code = ((Number) stored).intValue();
+    return codes.entrySet().stream()
+        .filter(e -> e.getValue() == code)
+        .map(Map.Entry::getKey)
+        .findFirst()
+        .orElseThrow(() -> new IllegalArgumentException("Unknown transaction code: " + code));
+  }
+
+  public static class TypeConverter implements MongoValueConverter<String, Object> {
+    @Override
+    public String read(Object value, MongoConversionContext context) { return decode(TYPES, value); }
+
+    @Override
+    public Object write(String value, MongoConversionContext context) { return encode(TYPES, value); }
+  }
+
+  public static class StatusConverter implements MongoValueConverter<String, Object> {
+    @Override
+    public String read(Object value, MongoConversionContext context) { return decode(STATUSES, value); }
+
+    @Override
+    public Object write(String value, MongoConversionContext context) { return encode(STATUSES, value); }
+  }
+}
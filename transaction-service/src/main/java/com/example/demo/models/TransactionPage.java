@@ -0,0 +1,6 @@
+package com.example.demo.models;
+
+import java.util.List;
+
+// next is the "before" cursor for the following (older) page, null on the last page
+public record TransactionPage(List<Transaction> transactions, String next) {}
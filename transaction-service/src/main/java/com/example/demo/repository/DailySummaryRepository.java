@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.demo.models.DailySummary;
+
+public interface DailySummaryRepository extends MongoRepository<DailySummary, String>, DailySummaryRepositoryCustom {
+}
@@ -0,0 +1,16 @@
+package com.example.demo.repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import com.example.demo.models.DailySummary;
+import com.example.demo.models.Transaction;
+
+public interface DailySummaryRepositoryCustom {
+
+    // folds successful transactions into their accounts' day documents, one upsert per account and day
+    void applyAll(List<Transaction> transactions);
+
+    // oldest first, both days inclusive; days without transactions have no document
+    List<DailySummary> findRange(String accountNumber, LocalDate from, LocalDate to);
+}
@@ -0,0 +1,121 @@
+package com.example.demo.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.BulkOperations.BulkMode;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.models.DailySummary;
+import com.example.demo.models.MinorUnitsConverter;
+import com.example.demo.models.Transaction;
+
+public class DailySummaryRepositoryImpl implements DailySummaryRepositoryCustom {
+
+    private static final String COLLECTION = "daily_summaries";
+    private static final Comparator<Point> ORDER =
+            Comparator.comparing(Point::at).thenComparing(Point::txn, Comparator.nullsFirst(Comparator.naturalOrder()));
+
+    private final MongoTemplate mongo;
+
+    public DailySummaryRepositoryImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    // Counts and totals are $inc'ed in minor units; the opening and closing balances are kept
+    // with $min/$max on {at, txn, b}, so concurrent writers converge on the earliest and latest.
+    @Override
+    public void applyAll(List<Transaction> transactions) {
+        Map<String, Delta> deltas = new LinkedHashMap<>();
+        for (Transaction t : transactions) {
+            if (!"SUCCESS".equals(t.getStatus()) || t.getTimestamp() == null) continue;
+            long minor = MinorUnitsConverter.toMinor(t.getAmount());
+            if (t.getSourceAccount() != null)
+                delta(deltas, t.getSourceAccount(), t).add(t, kind(t.getType(), "tout"), -minor, t.getSourceBalance());
+            if (t.getDestinationAccount() != null)
+                delta(deltas, t.getDestinationAccount(), t).add(t, kind(t.getType(), "tin"), minor, t.getDestinationBalance());
+        }
+        if (deltas.isEmpty()) return;
+
+        BulkOperations bulk = mongo.bulkOps(BulkMode.UNORDERED, COLLECTION);
+        deltas.forEach((id, d) -> {
+            Update update = new Update().setOnInsert("acct", d.account).setOnInsert("day", d.day);
+            d.counts.forEach((kind, n) -> update.inc(kind + "N", n));
+            d.totals.forEach((kind, total) -> update.inc(kind + "T", total));
+            if (d.open != null) update.min("open", d.open.document());
+            if (d.close != null) update.max("close", d.close.document());
+            bulk.upsert(new Query(where("_id").is(id)), update);
+        });
+        bulk.execute();
+    }
+
+    @Override
+    public List<DailySummary> findRange(String accountNumber, LocalDate from, LocalDate to) {
+        return mongo.find(new Query(where("_id").gte(key(accountNumber, from)).lte(key(accountNumber, to)))
+                .with(Sort.by("_id")), DailySummary.class);
+    }
+
+    private static Delta delta(Map<String, Delta> deltas, String account, Transaction t) {
+        LocalDate day = LocalDate.ofInstant(t.getTimestamp(), ZoneOffset.UTC);
+        return deltas.computeIfAbsent(key(account, day), k -> new Delta(account, day.toString()));
+    }
+
+    // field prefix of the counters a transaction type feeds; transfers count per direction
+    private static String kind(String type, String transferSide) {
+        return switch (type) {
+            case "DEPOSIT" -> "dep";
+            case "WITHDRAW" -> "wd";
+            default -> transferSide;
+        };
+    }
+
+    static String key(String accountNumber, LocalDate day) {
+        return accountNumber + ":" + day;
+    }
+
+    private static final class Delta {
+        final String account;
+        final String day;
+        final Map<String, Long> counts = new LinkedHashMap<>();
+        final Map<String, Long> totals = new LinkedHashMap<>();
+        Point open;
+        Point close;
+
+        Delta(String account, String day) {
+            this.account = account;
+            this.day = day;
+        }
+
+        // signed is the change this transaction made to the account's balance
+        Delta add(Transaction t, String kind, long signed, Double balanceAfter) {
+            counts.merge(kind, 1L, Long::sum);
+            totals.merge(kind, Math.abs(signed), Long::sum);
+            if (balanceAfter == null) return this;
+            long after = MinorUnitsConverter.toMinor(balanceAfter);
+            Point before = new Point(t.getTimestamp(), t.getTransactionId(), after - signed);
+            Point now = new Point(t.getTimestamp(), t.getTransactionId(), after);
+            if (open == null || ORDER.compare(before, open) < 0) open = before;
+            if (close == null || ORDER.compare(now, close) >= 0) close = now;
+            return this;
+        }
+    }
+
+    private record Point(Instant at, String txn, long balance) {
+        Document document() {
+            return new Document("at", Date.from(at)).append("txn", txn).append("b", balance);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.demo.models.IdempotencyRecord;
+
+public interface IdempotencyRepository extends MongoRepository<IdempotencyRecord, String>, IdempotencyRepositoryCustom {
+}
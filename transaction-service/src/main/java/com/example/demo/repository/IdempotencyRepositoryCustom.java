@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import com.example.demo.models.IdempotencyRecord;
+
+public interface IdempotencyRepositoryCustom {
+
+    // claims a key whose first request started before staleBefore and never finished
+    Optional<IdempotencyRecord> takeOverStale(String key, Instant staleBefore, Instant now);
+}
@@ -0,0 +1,29 @@
+package com.example.demo.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.Instant;
+import java.util.Optional;
+
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.models.IdempotencyRecord;
+
+public class IdempotencyRepositoryImpl implements IdempotencyRepositoryCustom {
+
+    private final MongoTemplate mongo;
+
+    public IdempotencyRepositoryImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public Optional<IdempotencyRecord> takeOverStale(String key, Instant staleBefore, Instant now) {
+        Query stale = new Query(where("_id").is(key).and("result").exists(false).and("outcomeUnknown").ne(true).and("startedAt").lt(staleBefore));
+        return Optional.ofNullable(mongo.findAndModify(stale, new Update().set("startedAt", now),
+                FindAndModifyOptions.options().returnNew(true), IdempotencyRecord.class));
+    }
+}
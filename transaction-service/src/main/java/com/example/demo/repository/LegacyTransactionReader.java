@@ -0,0 +1,30 @@
+package com.example.demo.repository;
+
+import java.util.Date;
+
+import org.bson.Document;
+import org.springframework.data.mongodb.core.mapping.event.AfterConvertCallback;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Transaction;
+
+// Fills in documents that still use the original long field names until
+// TransactionStorageMigration has rewritten them.
+@Component
+public class LegacyTransactionReader implements AfterConvertCallback<Transaction> {
+
+  static final String LEGACY_MARKER = "amount";
+
+  @Override
+  public Transaction onAfterConvert(Transaction t, Document doc, String collection) {
+    if (!doc.containsKey(LEGACY_MARKER)) return t;
+    if (doc.get("transactionId") instanceof String transactionId) t.setTransactionId(transactionId);
+    t.setType(doc.getString("type"));
+    t.setAmount(((Number) doc.get("amount")).doubleValue());
+    if (doc.get("timestamp") instanceof Date timestamp) t.setTimestamp(timestamp.toInstant());
+    t.setStatus(doc.getString("status"));
+    t.setSourceAccount(doc.getString("sourceAccount"));
+    t.setDestinationAccount(doc.getString("destinationAccount"));
+    return t;
+  }
+}
@@ -0,0 +1,12 @@
+package com.example.demo.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.demo.models.OutboxEntry;
+
+public interface OutboxRepository extends MongoRepository<OutboxEntry, String>, OutboxRepositoryCustom {
+
+    Optional<OutboxEntry> findFirstByOrderByCreatedAtAsc();
+}
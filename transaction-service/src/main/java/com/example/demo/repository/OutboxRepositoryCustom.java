@@ -0,0 +1,15 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.util.List;
+
+import com.example.demo.models.OutboxEntry;
+
+public interface OutboxRepositoryCustom {
+
+    // leases up to limit due entries to the caller so other instances skip them
+    List<OutboxEntry> claimDue(int limit, Duration lease);
+
+    // number of entries in the outbox without a collection scan
+    long estimatedBacklog();
+}
@@ -0,0 +1,44 @@
+package com.example.demo.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.models.OutboxEntry;
+
+public class OutboxRepositoryImpl implements OutboxRepositoryCustom {
+
+    private final MongoTemplate mongo;
+
+    public OutboxRepositoryImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    @Override
+    public List<OutboxEntry> claimDue(int limit, Duration lease) {
+        Instant now = Instant.now();
+        Query due = new Query(where("nextAttemptAt").lte(now)).with(Sort.by("nextAttemptAt")).limit(limit);
+        due.fields().include("_id");
+        List<String> ids = mongo.find(due, OutboxEntry.class).stream().map(OutboxEntry::getId).toList();
+        if (ids.isEmpty()) return List.of();
+        // re-check the due time so an entry another instance claimed in between is left alone
+        String claim = UUID.randomUUID().toString();
+        mongo.updateMulti(new Query(where("_id").in(ids).and("nextAttemptAt").lte(now)),
+                new Update().set("claim", claim).set("nextAttemptAt", now.plus(lease)),
+                OutboxEntry.class);
+        return mongo.find(new Query(where("claim").is(claim)).with(Sort.by("createdAt")), OutboxEntry.class);
+    }
+
+    @Override
+    public long estimatedBacklog() {
+        return mongo.estimatedCount(OutboxEntry.class);
+    }
+}
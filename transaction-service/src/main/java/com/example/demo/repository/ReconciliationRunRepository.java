@@ -0,0 +1,8 @@
+package com.example.demo.repository;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import com.example.demo.models.ReconciliationRun;
+
+public interface ReconciliationRunRepository extends MongoRepository<ReconciliationRun, String> {
+}
@@ -1,7 +1,5 @@
 package com.example.demo.repository;
 
-import java.util.List;
-
 import org.springframework.data.mongodb.repository.MongoRepository;
 
 import com.example.demo.models.Transaction;
@@ -9,9 +7,5 @@ import com.example.demo.models.Transaction;
 
 
 
-public interface TransactionRepository extends MongoRepository<Transaction, String> {
-
-    List<Transaction> findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-            String source, String destination
-    );
+public interface TransactionRepository extends MongoRepository<Transaction, String>, TransactionRepositoryCustom {
 }
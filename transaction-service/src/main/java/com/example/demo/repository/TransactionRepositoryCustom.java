@@ -0,0 +1,38 @@
+package com.example.demo.repository;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import com.example.demo.models.Transaction;
+
+public interface TransactionRepositoryCustom {
+
+    // newest first; beforeTimestamp/beforeId (both null for the first page) exclude everything up to the cursor
+    List<Transaction> findHistory(String accountNumber, Instant beforeTimestamp, String beforeId, int limit);
+
+    // oldest first, from inclusive / to exclusive; the caller must close the stream
+    Stream<Transaction> streamStatement(String accountNumber, Instant from, Instant to, int batchSize);
+
+    // SUCCESS transactions whose source (outgoing) or destination account is in [first, last],
+    // by account and newest first within each; the caller must close the stream
+    Stream<Transaction> streamSettled(boolean outgoing, String first, String last, int batchSize);
+
+    // the subset of ids already stored
+    Set<String> findExistingIds(Collection<String> ids);
+
+    // PENDING transactions, oldest first
+    List<Transaction> findPending(int limit);
+
+    long countPending();
+
+    // takes a lease on a PENDING transaction; false if it is settled or leased until after now
+    // also renews a lease the same owner already holds
+    boolean claimPending(String transactionId, String owner, Instant now, Duration lease);
+
+    // writes the outcome of a PENDING transaction; false if it was no longer pending or owner lost the lease
+    boolean completePending(Transaction settled, String owner);
+}
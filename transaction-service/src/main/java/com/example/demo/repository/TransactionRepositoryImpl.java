@@ -0,0 +1,117 @@
+package com.example.demo.repository;
+
+import static org.springframework.data.mongodb.core.query.Criteria.where;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.example.demo.models.Transaction;
+
+public class TransactionRepositoryImpl implements TransactionRepositoryCustom {
+
+    // replay lease on PENDING documents and the instance holding it; not part of the mapped entity
+    private static final String LEASE = "lease";
+    private static final String LEASE_OWNER = "leaseBy";
+
+    private final MongoTemplate mongo;
+
+    public TransactionRepositoryImpl(MongoTemplate mongo) {
+        this.mongo = mongo;
+    }
+
+    // Each $or branch carries the cursor so it runs as a bounded scan of its own
+    // (account, ts, _id) index and Mongo merges the two already-sorted streams.
+    @Override
+    public List<Transaction> findHistory(String accountNumber, Instant beforeTimestamp, String beforeId, int limit) {
+        Query query = new Query(new Criteria().orOperator(
+                side("sourceAccount", accountNumber, beforeTimestamp, beforeId),
+                side("destinationAccount", accountNumber, beforeTimestamp, beforeId)))
+                .with(Sort.by(Sort.Order.desc("timestamp"), Sort.Order.desc("id")))
+                .limit(limit);
+        return mongo.find(query, Transaction.class);
+    }
+
+    @Override
+    public Stream<Transaction> streamStatement(String accountNumber, Instant from, Instant to, int batchSize) {
+        Query query = new Query(new Criteria().orOperator(
+                where("sourceAccount").is(accountNumber).and("timestamp").gte(from).lt(to),
+                where("destinationAccount").is(accountNumber).and("timestamp").gte(from).lt(to)))
+                .with(Sort.by(Sort.Order.asc("timestamp"), Sort.Order.asc("id")))
+                .cursorBatchSize(batchSize);
+        return mongo.stream(query, Transaction.class);
+    }
+
+    // walks the src_ts / dst_ts index in order and reads only what reconciliation needs
+    @Override
+    public Stream<Transaction> streamSettled(boolean outgoing, String first, String last, int batchSize) {
+        String account = outgoing ? "sourceAccount" : "destinationAccount";
+        Query query = new Query(where(account).gte(first).lte(last).and("status").is("SUCCESS"))
+                .with(Sort.by(Sort.Order.asc(account), Sort.Order.desc("timestamp"), Sort.Order.desc("id")))
+                .cursorBatchSize(batchSize);
+        query.fields().include("id", account, "amount", "timestamp",
+                outgoing ? "sourceBalance" : "destinationBalance");
+        return mongo.stream(query, Transaction.class);
+    }
+
+    private static Criteria side(String field, String accountNumber, Instant beforeTimestamp, String beforeId) {
+        Criteria criteria = where(field).is(accountNumber);
+        if (beforeTimestamp == null) return criteria;
+        return criteria.orOperator(
+                where("timestamp").lt(beforeTimestamp),
+                where("timestamp").is(beforeTimestamp).and("id").lt(beforeId));
+    }
+
+    @Override
+    public Set<String> findExistingIds(Collection<String> ids) {
+        if (ids.isEmpty()) return Set.of();
+        Query query = new Query(where("_id").in(ids));
+        query.fields().include("_id");
+        return mongo.find(query, Transaction.class).stream()
+                .map(Transaction::getTransactionId)
+                .collect(Collectors.toSet());
+    }
+
+    // Pending entries sort by _id, which is time ordered, so the queue is read in arrival order.
+    @Override
+    public List<Transaction> findPending(int limit) {
+        return mongo.find(new Query(where("status").is("PENDING")).with(Sort.by("_id")).limit(limit), Transaction.class);
+    }
+
+    @Override
+    public long countPending() {
+        return mongo.count(new Query(where("status").is("PENDING")), Transaction.class);
+    }
+
+    @Override
+    public boolean claimPending(String transactionId, String owner, Instant now, Duration lease) {
+        Query query = new Query(where("_id").is(transactionId).and("status").is("PENDING")
+                .orOperator(where(LEASE).exists(false), where(LEASE).lte(now), where(LEASE_OWNER).is(owner)));
+        return mongo.updateFirst(query, new Update().set(LEASE, now.plus(lease)).set(LEASE_OWNER, owner),
+                Transaction.class).getModifiedCount() > 0;
+    }
+
+    @Override
+    public boolean completePending(Transaction settled, String owner) {
+        Update update = new Update()
+                .set("status", settled.getStatus())
+                .set("timestamp", settled.getTimestamp())
+                .unset(LEASE)
+                .unset(LEASE_OWNER);
+        if (settled.getSourceBalance() != null) update.set("sourceBalance", settled.getSourceBalance());
+        if (settled.getDestinationBalance() != null) update.set("destinationBalance", settled.getDestinationBalance());
+        Query query = new Query(where("_id").is(settled.getTransactionId()).and("status").is("PENDING")
+                .and(LEASE_OWNER).is(owner));
+        return mongo.updateFirst(query, update, Transaction.class).getModifiedCount() > 0;
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.demo.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Transaction;
+import com.example.demo.models.TransactionCodes;
+import com.mongodb.client.MongoCollection;
+
+// Rewrites transactions stored in the original layout into the compact one:
+// short field names, int codes, long minor-unit amounts and the transaction id
+// as _id. Runs server-side in batches; safe to re-run after an interruption.
+@Component
+public class TransactionStorageMigration {
+
+  private static final Logger log = LoggerFactory.getLogger(TransactionStorageMigration.class);
+
+  private final MongoTemplate mongo;
+  private final boolean enabled;
+  private final int batchSize;
+
+  public TransactionStorageMigration(MongoTemplate mongo,
+                                     @Value("${transactions.migration.enabled:true}") boolean enabled,
+                                     @Value("${transactions.migration.batch-size:1000}") int batchSize) {
+    this.mongo = mongo;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+  }
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void start() {
+    if (!enabled) return;
+    Thread worker = new Thread(this::migrate, "transaction-migration");
+    worker.setDaemon(true);
+    worker.start();
+  }
+
+  void migrate() {
+    try {
+      MongoCollection<Document> coll = mongo.getCollection(mongo.getCollectionName(Transaction.class));
+      Document legacy = new Document(LegacyTransactionReader.LEGACY_MARKER, new Document("$exists", true));
+      long migrated = 0;
+      while (true) {
+        List<Object> ids = coll.find(legacy).projection(new Document("_id", 1)).limit(batchSize)
+            .map(d -> d.get("_id")).into(new ArrayList<>());
+        if (ids.isEmpty()) break;
+        Document inBatch = new Document("_id", new Document("$in", ids));
+        coll.aggregate(pipeline(inBatch, coll.getNamespace().getCollectionName())).toCollection();
+        // re-keyed documents leave their original behind; documents without a
+        // transactionId were replaced in place and no longer match the marker
+        coll.deleteMany(new Document(inBatch).append(LegacyTransactionReader.LEGACY_MARKER, new Document("$exists", true)));
+        migrated += ids.size();
+      }
+      if (migrated > 0) log.info("Migrated {} transactions to the compact layout", migrated);
+    } catch (RuntimeException ex) {
+      log.warn("Transaction storage migration stopped: {}", ex.getMessage());
+    }
+  }
+
+  static List<Document> pipeline(Document match, String collection) {
+    Document set = new Document("_id", new Document("$ifNull", List.of("$transactionId", "$_id")))
+        .append("t", codeSwitch("$type", TransactionCodes.TYPES))
+        .append("a", new Document("$toLong", new Document("$round", List.of(new Document("$multiply", List.of("$amount", 100)), 0))))
+        .append("ts", "$timestamp")
+        .append("st", codeSwitch("$status", TransactionCodes.STATUSES))
+        .append("src", "$sourceAccount")
+        .append("dst", "$destinationAccount");
+    return List.of(
+        new Document("$match", match),
+        new Document("$set", set),
+        new Document("$unset", List.of("transactionId", "type", "amount", "timestamp", "status", "sourceAccount", "destinationAccount")),
+        new Document("$merge", new Document("into", collection).append("on", "_id")
+            .append("whenMatched", "replace").append("whenNotMatched", "insert")));
+  }
+
+  // unknown names are kept as strings, which the converters still read
+  private static Document codeSwitch(String field, Map<String, Integer> codes) {
+    List<Document> branches = new ArrayList<>();
+    codes.forEach((name, code) -> branches.add(new Document("case", new Document("$eq", List.of(field, name))).append("then", code)));
+    return new Document("$switch", new Document("branches", branches).append("default", field));
+  }
+}
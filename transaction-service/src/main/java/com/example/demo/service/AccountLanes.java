@@ -0,0 +1,96 @@
+package com.example.demo.service;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Striped execution lanes keyed by account number. Work on one account runs one at a
+ * time in arrival order (the lane locks are fair); work on accounts in different lanes
+ * runs in parallel. Two-account work takes both lanes lowest index first, so two
+ * transfers in opposite directions cannot deadlock. A lane that stays busy past the wait
+ * timeout fails the operation with {@link BusyException} before account-service is called.
+ */
+@Component
+public class AccountLanes {
+
+    private final ReentrantLock[] lanes;
+    private final long timeoutMillis;
+    private final Timer waits;
+
+    public AccountLanes(@Value("${transactions.lanes.count:64}") int count,
+                        @Value("${transactions.lanes.wait-timeout-ms:5000}") long timeoutMillis,
+                        MeterRegistry registry) {
+        this.lanes = new ReentrantLock[count];
+        for (int i = 0; i < count; i++) lanes[i] = new ReentrantLock(true);
+        this.timeoutMillis = timeoutMillis;
+
+        this.waits = Timer.builder("transactions.lanes.wait")
+                .description("Time spent waiting for an account lane").register(registry);
+        Gauge.builder("transactions.lanes.queued", lanes,
+                        l -> Arrays.stream(l).mapToInt(ReentrantLock::getQueueLength).sum())
+                .description("Operations waiting across all lanes").register(registry);
+        Gauge.builder("transactions.lanes.max-queued", lanes,
+                        l -> Arrays.stream(l).mapToInt(ReentrantLock::getQueueLength).max().orElse(0))
+                .description("Operations waiting on the busiest lane").register(registry);
+    }
+
+    public <T> T run(String account, Supplier<T> action) {
+        return run(account, account, action);
+    }
+
+    public <T> T run(String first, String second, Supplier<T> action) {
+        int a = lane(first);
+        int b = lane(second);
+        ReentrantLock low = lanes[Math.min(a, b)];
+        ReentrantLock high = lanes[Math.max(a, b)];
+        acquire(low);
+        try {
+            if (high != low) acquire(high);
+            try {
+                return action.get();
+            } finally {
+                if (high != low) high.unlock();
+            }
+        } finally {
+            low.unlock();
+        }
+    }
+
+    int lane(String account) {
+        int h = Objects.hashCode(account);
+        return Math.floorMod(h ^ (h >>> 16), lanes.length);
+    }
+
+    private void acquire(ReentrantLock lock) {
+        long start = System.nanoTime();
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS))
+                throw new BusyException("Account is busy, retry later");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new BusyException("Interrupted waiting for account");
+        } finally {
+            waits.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Contention on one account, not an account-service failure: the breaker ignores it and
+    // the fallbacks pass it through as a 503.
+    public static class BusyException extends ResponseStatusException {
+        public BusyException(String reason) {
+            super(HttpStatus.SERVICE_UNAVAILABLE, reason);
+        }
+    }
+}
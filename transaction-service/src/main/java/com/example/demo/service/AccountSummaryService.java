@@ -0,0 +1,63 @@
+package com.example.demo.service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.AccountSummary;
+import com.example.demo.models.DailySummary;
+import com.example.demo.models.MinorUnitsConverter;
+import com.example.demo.repository.DailySummaryRepository;
+
+/**
+ * Period totals for an account, read from the daily summary documents rather than by
+ * scanning transactions, so a year costs at most 366 small documents.
+ */
+@Service
+public class AccountSummaryService {
+
+    private final DailySummaryRepository summaries;
+    private final long maxDays;
+
+    public AccountSummaryService(DailySummaryRepository summaries,
+                                 @Value("${transactions.summary.max-days:3660}") long maxDays) {
+        this.summaries = summaries;
+        this.maxDays = maxDays;
+    }
+
+    public AccountSummary getSummary(String accountNumber, LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        if (ChronoUnit.DAYS.between(from, to) >= maxDays)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Summary range exceeds " + maxDays + " days");
+
+        List<DailySummary> days = summaries.findRange(accountNumber, from, to);
+        long depN = 0, wdN = 0, tinN = 0, toutN = 0;
+        long depT = 0, wdT = 0, tinT = 0, toutT = 0;
+        for (DailySummary d : days) {
+            depN += d.getDepositCount();
+            wdN += d.getWithdrawCount();
+            tinN += d.getTransferInCount();
+            toutN += d.getTransferOutCount();
+            // summed in minor units so a long range does not drift
+            depT += MinorUnitsConverter.toMinor(d.getDepositTotal());
+            wdT += MinorUnitsConverter.toMinor(d.getWithdrawTotal());
+            tinT += MinorUnitsConverter.toMinor(d.getTransferInTotal());
+            toutT += MinorUnitsConverter.toMinor(d.getTransferOutTotal());
+        }
+        Double opening = days.stream().filter(d -> d.getOpening() != null).findFirst()
+                .map(d -> d.getOpening().getBalance()).orElse(null);
+        Double closing = null;
+        for (DailySummary d : days)
+            if (d.getClosing() != null) closing = d.getClosing().getBalance();
+
+        return new AccountSummary(accountNumber, from, to,
+                depN, depT / 100.0, wdN, wdT / 100.0, tinN, tinT / 100.0, toutN, toutT / 100.0,
+                opening, closing, days);
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.IdempotencyRecord;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.IdempotencyRepository;
+
+/**
+ * Runs a money movement at most once per Idempotency-Key. Completed results live in
+ * the idempotency_keys collection (24h TTL) with a bounded in-memory copy in front of
+ * it. Duplicates arriving while the first request is still running in this instance
+ * wait for it, provided they carry the same request; a duplicate racing on another
+ * instance gets 409. A failure that provably moved no money releases its key so the
+ * client can retry; one whose outcome is unknown keeps it, and retries get that result,
+ * or 409 when the request ended in an exception rather than a result.
+ */
+@Component
+public class IdempotentExecutor {
+
+    private final IdempotencyRepository repo;
+    private final long waitSeconds;
+    private final Duration staleAfter;
+    private final long cacheTtlNanos;
+    private final int cacheSize;
+
+    private final ConcurrentHashMap<String, Running> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, Cached> completed = new LinkedHashMap<>(16, 0.75f, true);
+
+    private record Cached(String fingerprint, Transaction result, long expiresAt) {}
+
+    private record Running(String fingerprint, CompletableFuture<Transaction> result) {}
+
+    public IdempotentExecutor(IdempotencyRepository repo,
+                              @Value("${idempotency.wait-seconds:30}") long waitSeconds,
+                              @Value("${idempotency.stale-after-seconds:120}") long staleAfterSeconds,
+                              @Value("${idempotency.cache.ttl-seconds:600}") long cacheTtlSeconds,
+                              @Value("${idempotency.cache.max-size:10000}") int cacheSize) {
+        this.repo = repo;
+        this.waitSeconds = waitSeconds;
+        this.staleAfter = Duration.ofSeconds(staleAfterSeconds);
+        this.cacheTtlNanos = cacheTtlSeconds * 1_000_000_000L;
+        this.cacheSize = cacheSize;
+    }
+
+    public Transaction execute(String operation, String idempotencyKey, String fingerprint, Supplier<Transaction> action) {
+        String key = operation + ":" + idempotencyKey;
+        Cached cached = cached(key);
+        if (cached != null) return replay(cached.fingerprint(), fingerprint, cached.result());
+
+        Running mine = new Running(fingerprint, new CompletableFuture<>());
+        Running running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            replay(running.fingerprint(), fingerprint, null);
+            return await(running.result());
+        }
+        try {
+            Transaction result = claimAndRun(key, fingerprint, action);
+            mine.result().complete(result);
+            return result;
+        } catch (RuntimeException ex) {
+            mine.result().completeExceptionally(ex);
+            throw ex;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Transaction claimAndRun(String key, String fingerprint, Supplier<Transaction> action) {
+        Instant now = Instant.now();
+        try {
+            repo.insert(new IdempotencyRecord(key, fingerprint, now, null, false));
+        } catch (DuplicateKeyException ex) {
+            IdempotencyRecord existing = repo.findById(key).orElse(null);
+            if (existing != null && existing.getResult() != null) {
+                remember(key, existing.getFingerprint(), existing.getResult());
+                return replay(existing.getFingerprint(), fingerprint, existing.getResult());
+            }
+            if (existing != null && existing.isOutcomeUnknown()) {
+                replay(existing.getFingerprint(), fingerprint, null);
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "A request with this Idempotency-Key failed and may have been applied");
+            }
+            // a request that started long ago and never finished died with its instance
+            if (repo.takeOverStale(key, now.minus(staleAfter), now).isEmpty())
+                throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is in progress");
+        }
+
+        Transaction result;
+        try {
+            result = action.get();
+        } catch (RuntimeException ex) {
+            // past the fallbacks only failures after the money moved get here, such as the
+            // ledger write: keep the key so a retry cannot apply it again
+            if (TransactionService.notApplied(ex)) repo.deleteById(key);
+            else repo.save(new IdempotencyRecord(key, fingerprint, now, null, true));
+            throw ex;
+        }
+        if ("FAILED".equals(result.getStatus()) && !result.isOutcomeUnknown()) {
+            // the circuit-breaker fallback knows no money moved: let a retry run for real
+            repo.deleteById(key);
+            return result;
+        }
+        repo.save(new IdempotencyRecord(key, fingerprint, now, result, false));
+        remember(key, fingerprint, result);
+        return result;
+    }
+
+    private Transaction await(CompletableFuture<Transaction> running) {
+        try {
+            return running.get(waitSeconds, TimeUnit.SECONDS);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException cause) throw cause;
+            throw new IllegalStateException(ex.getCause());
+        } catch (TimeoutException ex) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A request with this Idempotency-Key is in progress");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+
+    private static Transaction replay(String storedFingerprint, String fingerprint, Transaction result) {
+        if (!storedFingerprint.equals(fingerprint))
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request");
+        return result;
+    }
+
+    private synchronized Cached cached(String key) {
+        Cached cached = completed.get(key);
+        if (cached != null && cached.expiresAt() - System.nanoTime() < 0) {
+            completed.remove(key);
+            return null;
+        }
+        return cached;
+    }
+
+    private synchronized void remember(String key, String fingerprint, Transaction result) {
+        completed.put(key, new Cached(fingerprint, result, System.nanoTime() + cacheTtlNanos));
+        if (completed.size() > cacheSize) {
+            Map.Entry<String, Cached> eldest = completed.entrySet().iterator().next();
+            completed.remove(eldest.getKey());
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.service.TransactionJournal.Batch;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Copies durable journal records to Mongo in batches and acknowledges them. It starts
+ * from the last checkpoint, so records that were journaled but not shipped before a
+ * restart are replayed; the inserts skip anything that already made it.
+ */
+@Component
+public class JournalShipper {
+
+    private static final Logger log = LoggerFactory.getLogger(JournalShipper.class);
+
+    private final TransactionJournal journal;
+    private final TransactionLedger ledger;
+    private final int batchSize;
+    private final long pollMillis;
+    private ScheduledExecutorService scheduler;
+
+    public JournalShipper(TransactionJournal journal,
+                          TransactionLedger ledger,
+                          @Value("${transactions.journal.ship-batch-size:1000}") int batchSize,
+                          @Value("${transactions.journal.ship-poll-ms:200}") long pollMillis,
+                          MeterRegistry registry) {
+        this.journal = journal;
+        this.ledger = ledger;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+
+        Gauge.builder("transactions.journal.unshipped-bytes", journal, TransactionJournal::backlog)
+                .description("Journaled bytes not yet written to Mongo").register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!journal.isEnabled()) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-shipper");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::shipQuietly, 0, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void shipQuietly() {
+        try {
+            // keep going while batches come back full
+            while (ship() == batchSize) { }
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Journal shipping failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    // returns the number of records shipped
+    int ship() throws IOException {
+        long from = journal.shipped();
+        Batch batch = journal.read(from, batchSize);
+        if (batch.next() == from) return 0;
+        if (!batch.entries().isEmpty()) ledger.ship(batch.entries());
+        journal.acknowledge(batch.next());
+        return batch.entries().size();
+    }
+}
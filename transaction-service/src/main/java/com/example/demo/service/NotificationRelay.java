@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.clients.NotificationClient;
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.models.OutboxEntry;
+import com.example.demo.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Drains the notification outbox in the background. Entries are leased in batches,
+ * sent in one request per batch, deleted once notification-service accepts them and
+ * retried with exponential backoff otherwise. Delivery is at-least-once.
+ */
+@Component
+public class NotificationRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationRelay.class);
+
+    private final OutboxRepository outbox;
+    private final NotificationClient notificationClient;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long pollMillis;
+    private final Duration lease;
+    private final long backoffMillis;
+    private final long maxBackoffMillis;
+
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private volatile long backlog;
+    private volatile long lagMillis;
+    private ScheduledExecutorService scheduler;
+
+    public NotificationRelay(OutboxRepository outbox,
+                             NotificationClient notificationClient,
+                             @Value("${notifications.outbox.enabled:true}") boolean enabled,
+                             @Value("${notifications.outbox.batch-size:100}") int batchSize,
+                             @Value("${notifications.outbox.poll-ms:500}") long pollMillis,
+                             @Value("${notifications.outbox.lease-seconds:30}") long leaseSeconds,
+                             @Value("${notifications.outbox.backoff-ms:1000}") long backoffMillis,
+                             @Value("${notifications.outbox.max-backoff-ms:300000}") long maxBackoffMillis,
+                             MeterRegistry registry) {
+        this.outbox = outbox;
+        this.notificationClient = notificationClient;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.pollMillis = pollMillis;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.backoffMillis = backoffMillis;
+        this.maxBackoffMillis = maxBackoffMillis;
+
+        Gauge.builder("notifications.outbox.backlog", this, r -> r.backlog)
+                .description("Notifications waiting in the outbox").register(registry);
+        TimeGauge.builder("notifications.outbox.lag", this, TimeUnit.MILLISECONDS, r -> r.lagMillis)
+                .description("Age of the oldest undelivered notification").register(registry);
+        FunctionCounter.builder("notifications.outbox.delivered", delivered, LongAdder::sum).register(registry);
+        FunctionCounter.builder("notifications.outbox.failed", failed, LongAdder::sum).register(registry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (!enabled) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "notification-relay");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::pollQuietly, pollMillis, pollMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void pollQuietly() {
+        try {
+            // keep draining while batches come back full
+            while (drain() == batchSize) { }
+            refreshMetrics();
+        } catch (RuntimeException ex) {
+            log.warn("Notification relay poll failed: {}", ex.getMessage());
+        }
+    }
+
+    // returns the number of entries claimed
+    int drain() {
+        List<OutboxEntry> batch = outbox.claimDue(batchSize, lease);
+        if (batch.isEmpty()) return 0;
+        try {
+            notificationClient.sendNotifications(batch.stream()
+                    .map(e -> new NotificationPayload(e.getTransactionId(), e.getMessage(), e.getTo()))
+                    .toList());
+        } catch (RuntimeException ex) {
+            failed.add(batch.size());
+            // retried as a whole; notification-service drops whatever it already accepted
+            Instant now = Instant.now();
+            batch.forEach(e -> {
+                e.setAttempts(e.getAttempts() + 1);
+                e.setLastError(ex.getMessage());
+                e.setNextAttemptAt(now.plusMillis(backoff(e.getAttempts())));
+                e.setClaim(null);
+            });
+            outbox.saveAll(batch);
+            return 0;
+        }
+        outbox.deleteAll(batch);
+        delivered.add(batch.size());
+        return batch.size();
+    }
+
+    long backoff(int attempts) {
+        return Math.min(maxBackoffMillis, backoffMillis << Math.min(attempts - 1, 20));
+    }
+
+    private void refreshMetrics() {
+        backlog = outbox.estimatedBacklog();
+        lagMillis = outbox.findFirstByOrderByCreatedAtAsc()
+                .map(e -> Math.max(0, Duration.between(e.getCreatedAt(), Instant.now()).toMillis()))
+                .orElse(0L);
+    }
+}
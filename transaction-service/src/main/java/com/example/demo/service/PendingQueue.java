@@ -0,0 +1,83 @@
+package com.example.demo.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.TransactionRepository;
+
+import feign.RetryableException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Degraded mode: while account-service is unreachable, operations are stored as PENDING
+ * transactions instead of FAILED ones. Only calls that provably never reached it are
+ * queued; after a timeout or a 5xx the change may already be applied, and replaying it
+ * would move the money twice. The transactions collection is the queue; a replayer claims
+ * entries oldest first under a lease so that only one instance applies each of them. The
+ * lease must outlast a Feign call (connect plus read timeout), since it is renewed just
+ * before the call and checked again when the outcome is written.
+ */
+@Component
+public class PendingQueue {
+
+    private final TransactionRepository txnRepo;
+    private final boolean enabled;
+    private final Duration lease;
+    // identifies this instance's leases
+    private final String owner = UUID.randomUUID().toString();
+
+    public PendingQueue(TransactionRepository txnRepo,
+                        @Value("${transactions.degraded.enabled:false}") boolean enabled,
+                        @Value("${transactions.degraded.lease-seconds:120}") long leaseSeconds,
+                        MeterRegistry registry) {
+        this.txnRepo = txnRepo;
+        this.enabled = enabled;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+
+        if (enabled)
+            Gauge.builder("transactions.pending", txnRepo, TransactionRepository::countPending)
+                    .description("Operations waiting for account-service to recover").register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // whether a failed call should be queued rather than reported as FAILED
+    public boolean accepts(Throwable ex) {
+        return enabled && neverReached(ex);
+    }
+
+    // the breaker turned the call away, or no connection to account-service could be opened
+    static boolean neverReached(Throwable ex) {
+        return ex instanceof CallNotPermittedException
+                || ex instanceof RetryableException && (ex.getCause() instanceof ConnectException
+                        || ex.getCause() instanceof UnknownHostException
+                        || ex.getCause() instanceof NoRouteToHostException);
+    }
+
+    public List<Transaction> due(int limit) {
+        return txnRepo.findPending(limit);
+    }
+
+    // false when another instance holds an unexpired lease on t, or it is no longer pending;
+    // renews the lease when this instance already holds it
+    public boolean claim(Transaction t) {
+        return txnRepo.claimPending(t.getTransactionId(), owner, Instant.now(), lease);
+    }
+
+    public String owner() {
+        return owner;
+    }
+}
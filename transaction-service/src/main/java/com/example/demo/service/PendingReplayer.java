@@ -0,0 +1,107 @@
+package com.example.demo.service;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.Transaction;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Replays PENDING transactions once the account circuit breaker lets calls through again
+ * (half-open or closed). Each second it settles at most replay-per-second entries, oldest
+ * first, through the same breaker as live traffic, so a service that is still recovering
+ * sees a trickle of probes rather than the whole backlog. An account whose entry could not
+ * be settled is skipped for the rest of the round, which keeps each account's operations
+ * in the order they were accepted.
+ */
+@Component
+public class PendingReplayer {
+
+    private static final Logger log = LoggerFactory.getLogger(PendingReplayer.class);
+
+    private final PendingQueue queue;
+    private final TransactionService service;
+    private final CircuitBreaker breaker;
+    private final int perSecond;
+    private ScheduledExecutorService scheduler;
+
+    public PendingReplayer(PendingQueue queue,
+                           TransactionService service,
+                           CircuitBreakerRegistry breakers,
+                           @Value("${transactions.degraded.replay-per-second:50}") int perSecond) {
+        this.queue = queue;
+        this.service = service;
+        this.breaker = breakers.circuitBreaker("accountServiceCB");
+        this.perSecond = perSecond;
+    }
+
+    @PostConstruct
+    void start() {
+        if (!queue.isEnabled()) return;
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pending-replayer");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler.scheduleWithFixedDelay(this::replayQuietly, 1, 1, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        if (scheduler != null) scheduler.shutdownNow();
+    }
+
+    private void replayQuietly() {
+        try {
+            replay();
+        } catch (RuntimeException ex) {
+            log.warn("Pending replay failed, will retry: {}", ex.getMessage());
+        }
+    }
+
+    // returns the number of transactions settled
+    int replay() {
+        if (breaker.getState() == CircuitBreaker.State.OPEN || breaker.getState() == CircuitBreaker.State.FORCED_OPEN)
+            return 0;
+        List<Transaction> due = queue.due(perSecond);
+        Set<String> blocked = new HashSet<>();
+        int settled = 0;
+        for (Transaction t : due) {
+            // anything behind a skipped entry, on either of its accounts, waits for the next round too
+            if (blocked.contains(t.getSourceAccount()) || blocked.contains(t.getDestinationAccount())
+                    || !queue.claim(t)) {
+                block(blocked, t);
+                continue;
+            }
+            try {
+                Transaction result = breaker.executeSupplier(() -> service.settle(t));
+                // still PENDING: the lease was lost to another instance before the call
+                if ("PENDING".equals(result.getStatus())) block(blocked, t);
+                else settled++;
+            } catch (RuntimeException ex) {
+                if (PendingQueue.neverReached(ex)) break;
+                log.warn("Could not settle pending transaction {}: {}", t.getTransactionId(), ex.getMessage());
+                block(blocked, t);
+            }
+        }
+        return settled;
+    }
+
+    private static void block(Set<String> blocked, Transaction t) {
+        if (t.getSourceAccount() != null) blocked.add(t.getSourceAccount());
+        if (t.getDestinationAccount() != null) blocked.add(t.getDestinationAccount());
+    }
+}
@@ -0,0 +1,417 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.clients.AccountClient;
+import com.example.demo.clients.AccountDTO;
+import com.example.demo.clients.AccountPageDTO;
+import com.example.demo.models.Discrepancy;
+import com.example.demo.models.MinorUnitsConverter;
+import com.example.demo.models.ReconciliationRun;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.ReconciliationRunRepository;
+import com.example.demo.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Checks account balances against the ledger. Accounts are read a page at a time from
+ * account-service; each page is a partition whose transactions are streamed from the
+ * src_ts and dst_ts indexes on a fork-join pool, newest first per account. An account's
+ * expected balance is its newest recorded post-transaction balance plus the flows after
+ * it, and every older recorded balance is checked against the same history, so drift is
+ * found wherever it happened after the account's first recorded balance.
+ *
+ * Partitions finish in any order but are committed in account order: their discrepancies
+ * are appended to the run's NDJSON report and the run is saved with the last account
+ * covered, so a failed or interrupted run resumes from there. Reads are paced to
+ * max-docs-per-second across all workers.
+ */
+@Component
+public class ReconciliationService {
+
+    private static final Logger log = LoggerFactory.getLogger(ReconciliationService.class);
+    private static final int PACING_STEP = 256;
+
+    private final TransactionRepository txnRepo;
+    private final ReconciliationRunRepository runs;
+    private final AccountClient accountClient;
+    private final ObjectMapper mapper;
+    private final Path dir;
+    private final int partitionSize;
+    private final int batchSize;
+    private final int parallelism;
+    private final long maxDocsPerSecond;
+    private final Duration settle;
+    private final ForkJoinPool pool;
+    private final ExecutorService driver;
+    private final AtomicReference<ReconciliationRun> active = new AtomicReference<>();
+    private final AtomicInteger inflight = new AtomicInteger();
+    private final Object pacing = new Object();
+    private long nextFreeNanos;
+
+    private final Counter checked;
+    private final Counter skipped;
+    private final Counter scanned;
+    private final Counter discrepancies;
+    private final Timer partitions;
+
+    public ReconciliationService(TransactionRepository txnRepo,
+                                 ReconciliationRunRepository runs,
+                                 AccountClient accountClient,
+                                 ObjectMapper mapper,
+                                 @Value("${reconciliation.dir:${java.io.tmpdir}/reconciliation}") String dir,
+                                 @Value("${reconciliation.partition-size:1000}") int partitionSize,
+                                 @Value("${reconciliation.batch-size:1000}") int batchSize,
+                                 @Value("${reconciliation.parallelism:4}") int parallelism,
+                                 @Value("${reconciliation.max-docs-per-second:20000}") long maxDocsPerSecond,
+                                 @Value("${reconciliation.settle-seconds:30}") long settleSeconds,
+                                 MeterRegistry registry) {
+        this.txnRepo = txnRepo;
+        this.runs = runs;
+        this.accountClient = accountClient;
+        this.mapper = mapper;
+        this.dir = Paths.get(dir);
+        this.partitionSize = partitionSize;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.maxDocsPerSecond = maxDocsPerSecond;
+        this.settle = Duration.ofSeconds(settleSeconds);
+        this.pool = new ForkJoinPool(parallelism, p -> {
+            ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+            t.setName("reconciliation-" + t.getPoolIndex());
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        }, null, false);
+        this.driver = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "reconciliation");
+            t.setDaemon(true);
+            return t;
+        });
+
+        Gauge.builder("reconciliation.partitions.inflight", inflight, AtomicInteger::get)
+                .description("Partitions submitted and not yet committed").register(registry);
+        this.checked = Counter.builder("reconciliation.accounts.checked")
+                .description("Accounts compared against the ledger").register(registry);
+        this.skipped = Counter.builder("reconciliation.accounts.skipped")
+                .description("Accounts with recent activity or no recorded balance to anchor on").register(registry);
+        this.scanned = Counter.builder("reconciliation.transactions.scanned")
+                .description("Transactions read by reconciliation").register(registry);
+        this.discrepancies = Counter.builder("reconciliation.discrepancies")
+                .description("Accounts whose balance does not match the ledger").register(registry);
+        this.partitions = Timer.builder("reconciliation.partition")
+                .description("Time to reconcile one partition").register(registry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(dir);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        driver.shutdownNow();
+        pool.shutdownNow();
+    }
+
+    public ReconciliationRun startRun() {
+        ReconciliationRun run = new ReconciliationRun();
+        run.setId("recon-" + UUID.randomUUID());
+        run.setStartedAt(Instant.now());
+        return submit(run);
+    }
+
+    public ReconciliationRun resumeRun(String id) {
+        ReconciliationRun run = getRun(id);
+        if (run.getStatus() == ReconciliationRun.Status.COMPLETED)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Reconciliation already completed");
+        run.setError(null);
+        run.setFinishedAt(null);
+        return submit(run);
+    }
+
+    public ReconciliationRun getRun(String id) {
+        ReconciliationRun current = active.get();
+        if (current != null && current.getId().equals(id)) return current;
+        return runs.findById(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Reconciliation not found"));
+    }
+
+    public Path report(String id) {
+        getRun(id);
+        Path file = reportFile(id);
+        if (!Files.exists(file))
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Reconciliation report not found");
+        return file;
+    }
+
+    // one run at a time per instance; it uses the whole pool and the whole read budget
+    private ReconciliationRun submit(ReconciliationRun run) {
+        if (!active.compareAndSet(null, run))
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "A reconciliation is already running");
+        try {
+            run.setStatus(ReconciliationRun.Status.RUNNING);
+            runs.save(run);
+            driver.execute(() -> execute(run));
+        } catch (RuntimeException ex) {
+            active.set(null);
+            throw ex;
+        }
+        return run;
+    }
+
+    private void execute(ReconciliationRun run) {
+        try {
+            Path file = reportFile(run.getId());
+            if (run.getReportBytes() > 0 && (!Files.exists(file) || Files.size(file) < run.getReportBytes())) {
+                log.warn("Report of reconciliation {} is missing, starting over", run.getId());
+                restart(run);
+            }
+            try (FileChannel report = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE)) {
+                // anything written after the checkpoint belongs to partitions that are redone now
+                report.truncate(run.getReportBytes());
+                report.position(run.getReportBytes());
+                drive(run, report);
+            }
+            run.setStatus(ReconciliationRun.Status.COMPLETED);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Reconciliation {} failed after {}: {}", run.getId(), run.getCheckpoint(), ex.getMessage());
+            run.setStatus(ReconciliationRun.Status.FAILED);
+            run.setError(ex.getMessage());
+        } finally {
+            run.setFinishedAt(Instant.now());
+            try {
+                runs.save(run);
+            } finally {
+                active.set(null);
+            }
+        }
+    }
+
+    // keeps up to two partitions per worker in flight and commits them strictly in order
+    private void drive(ReconciliationRun run, FileChannel report) throws IOException {
+        Deque<ForkJoinTask<PartitionResult>> window = new ArrayDeque<>();
+        String after = run.getCheckpoint();
+        boolean more = true;
+        try {
+            while (more || !window.isEmpty()) {
+                while (!window.isEmpty() && window.peek().isDone()) commit(run, window.poll(), report);
+                if (more && window.size() < parallelism * 2) {
+                    AccountPageDTO page = accountClient.listAccounts(after, partitionSize);
+                    Instant readAt = Instant.now();
+                    List<AccountDTO> accounts = page.getAccounts() == null ? List.of() : page.getAccounts();
+                    throttle(accounts.size());
+                    if (!accounts.isEmpty()) {
+                        window.add(pool.submit(() -> reconcile(accounts, readAt)));
+                        inflight.incrementAndGet();
+                    }
+                    after = page.getNext();
+                    more = after != null;
+                } else {
+                    commit(run, window.poll(), report);
+                }
+            }
+        } finally {
+            window.forEach(task -> task.cancel(false));
+            inflight.addAndGet(-window.size());
+        }
+    }
+
+    private void commit(ReconciliationRun run, ForkJoinTask<PartitionResult> task, FileChannel report)
+            throws IOException {
+        inflight.decrementAndGet();
+        PartitionResult result = task.join();
+        StringBuilder lines = new StringBuilder();
+        for (Discrepancy d : result.discrepancies()) lines.append(mapper.writeValueAsString(d)).append('\n');
+        ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+        while (buffer.hasRemaining()) report.write(buffer);
+        report.force(false);
+
+        run.setReportBytes(report.position());
+        run.setCheckpoint(result.last());
+        run.setAccounts(run.getAccounts() + result.checked());
+        run.setSkipped(run.getSkipped() + result.skipped());
+        run.setTransactions(run.getTransactions() + result.scanned());
+        run.setDiscrepancies(run.getDiscrepancies() + result.discrepancies().size());
+        runs.save(run);
+
+        checked.increment(result.checked());
+        skipped.increment(result.skipped());
+        scanned.increment(result.scanned());
+        discrepancies.increment(result.discrepancies().size());
+    }
+
+    // accounts are one page in account-number order, with balances read at readAt
+    PartitionResult reconcile(List<AccountDTO> accounts, Instant readAt) {
+        return partitions.record(() -> {
+            String first = accounts.get(0).getAccountNumber();
+            String last = accounts.get(accounts.size() - 1).getAccountNumber();
+            try (Stream<Transaction> out = txnRepo.streamSettled(true, first, last, batchSize);
+                 Stream<Transaction> in = txnRepo.streamSettled(false, first, last, batchSize)) {
+                return reconcile(accounts, readAt.minus(settle), new Side(out.iterator(), true),
+                        new Side(in.iterator(), false));
+            }
+        });
+    }
+
+    private PartitionResult reconcile(List<AccountDTO> accounts, Instant quietSince, Side out, Side in) {
+        List<Discrepancy> found = new ArrayList<>();
+        long checkedHere = 0, skippedHere = 0;
+        for (AccountDTO account : accounts) {
+            String number = account.getAccountNumber();
+            out.seek(number);
+            in.seek(number);
+            // minor units throughout; after is the net flow of everything newer than the current transaction
+            long after = 0, count = 0;
+            Long expected = null;
+            String driftAfter = null;
+            boolean busy = false;
+            while (out.at(number) || in.at(number)) {
+                Side next = !in.at(number) ? out : !out.at(number) ? in : newer(out.head, in.head) ? out : in;
+                Transaction t = next.head;
+                count++;
+                // moving while its balance was read, so the two cannot be compared
+                if (!t.getTimestamp().isBefore(quietSince)) busy = true;
+                if (!busy) {
+                    Double recorded = next.recorded();
+                    if (recorded != null) {
+                        long balance = MinorUnitsConverter.toMinor(recorded);
+                        if (expected == null) expected = balance + after;
+                        else if (driftAfter == null && balance + after != expected) driftAfter = t.getTransactionId();
+                    }
+                    after += next.flow();
+                }
+                next.advance();
+            }
+            if (busy || expected == null) {
+                skippedHere++;
+                continue;
+            }
+            checkedHere++;
+            long actual = MinorUnitsConverter.toMinor(account.getBalance());
+            if (actual != expected || driftAfter != null)
+                found.add(new Discrepancy(number, actual / 100.0, expected / 100.0, (actual - expected) / 100.0,
+                        driftAfter, count));
+        }
+        return new PartitionResult(accounts.get(accounts.size() - 1).getAccountNumber(), found,
+                checkedHere, skippedHere, out.read + in.read);
+    }
+
+    // the history indexes order by timestamp then id, both descending
+    private static boolean newer(Transaction a, Transaction b) {
+        int byTime = a.getTimestamp().compareTo(b.getTimestamp());
+        return byTime != 0 ? byTime > 0 : a.getTransactionId().compareTo(b.getTransactionId()) > 0;
+    }
+
+    private void throttle(int docs) {
+        if (maxDocsPerSecond <= 0 || docs == 0) return;
+        long cost = docs * 1_000_000_000L / maxDocsPerSecond;
+        long wait;
+        synchronized (pacing) {
+            long now = System.nanoTime();
+            long start = Math.max(nextFreeNanos, now);
+            nextFreeNanos = start + cost;
+            wait = start - now;
+        }
+        if (wait <= 0) return;
+        try {
+            TimeUnit.NANOSECONDS.sleep(wait);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while throttled", ex);
+        }
+    }
+
+    private Path reportFile(String id) {
+        return dir.resolve(id + ".ndjson");
+    }
+
+    private static void restart(ReconciliationRun run) {
+        run.setCheckpoint(null);
+        run.setReportBytes(0);
+        run.setAccounts(0);
+        run.setSkipped(0);
+        run.setTransactions(0);
+        run.setDiscrepancies(0);
+    }
+
+    record PartitionResult(String last, List<Discrepancy> discrepancies, long checked, long skipped, long scanned) {}
+
+    // one of a partition's two transaction streams, with the current transaction held in head
+    private final class Side {
+        private final Iterator<Transaction> it;
+        private final boolean outgoing;
+        private Transaction head;
+        private long read;
+
+        Side(Iterator<Transaction> it, boolean outgoing) {
+            this.it = it;
+            this.outgoing = outgoing;
+            advance();
+        }
+
+        void advance() {
+            head = it.hasNext() ? it.next() : null;
+            if (head != null && ++read % PACING_STEP == 0) throttle(PACING_STEP);
+        }
+
+        // skips transactions of accounts that are not on the page, such as removed ones
+        void seek(String number) {
+            while (head != null && account().compareTo(number) < 0) advance();
+        }
+
+        boolean at(String number) {
+            return head != null && account().equals(number);
+        }
+
+        String account() {
+            return outgoing ? head.getSourceAccount() : head.getDestinationAccount();
+        }
+
+        Double recorded() {
+            return outgoing ? head.getSourceBalance() : head.getDestinationBalance();
+        }
+
+        long flow() {
+            long amount = MinorUnitsConverter.toMinor(head.getAmount());
+            return outgoing ? -amount : amount;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.demo.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Time-ordered 63-bit ids: 41 bits of milliseconds since 2024-01-01, a 10-bit node and a
+ * 12-bit sequence, rendered as "TXN-" plus 13 Crockford base32 characters so string order
+ * is time order. Timestamp and sequence advance together through one CAS, so ids from an
+ * instance are strictly increasing even if the clock steps back.
+ */
+@Component
+public class SnowflakeIdGenerator implements TransactionIdGenerator {
+
+    static final long EPOCH = 1704067200000L;
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    static final String PREFIX = "TXN-";
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final char[] DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+    private static final int LENGTH = 13;
+
+    private final long node;
+    // (milliseconds since EPOCH << SEQUENCE_BITS) | sequence of the last id handed out
+    private final AtomicLong state = new AtomicLong();
+
+    // spring.cloud.client.ip-address is this host's address as resolved by Spring Cloud at startup
+    public SnowflakeIdGenerator(@Value("${transactions.ids.node:-1}") int node,
+                                @Value("${spring.cloud.client.ip-address:}") String ipAddress) {
+        this.node = node >= 0 ? node : nodeFor(ipAddress);
+        if (this.node >= 1 << NODE_BITS)
+            throw new IllegalArgumentException("transactions.ids.node must be below " + (1 << NODE_BITS));
+    }
+
+    // Replicas on one subnet differ in the low bits of their IPv4 address, so those bits
+    // give each a distinct node as long as the subnet spans at most 1024 addresses. Replicas
+    // sharing a host, or hosts without an IPv4 address, must set transactions.ids.node.
+    static long nodeFor(String ipAddress) {
+        String[] octets = ipAddress == null ? new String[0] : ipAddress.split("\\.");
+        if (octets.length != 4)
+            throw new IllegalStateException("Cannot derive a node from address '" + ipAddress
+                    + "', set transactions.ids.node");
+        return (Long.parseLong(octets[2]) << 8 | Long.parseLong(octets[3])) & ((1L << NODE_BITS) - 1);
+    }
+
+    @Override
+    public String next() {
+        long now = System.currentTimeMillis() - EPOCH;
+        while (true) {
+            long prev = state.get();
+            // a full sequence carries into the next millisecond
+            long next = now > prev >>> SEQUENCE_BITS ? now << SEQUENCE_BITS : prev + 1;
+            if (state.compareAndSet(prev, next))
+                return format((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS)
+                        | node << SEQUENCE_BITS
+                        | next & SEQUENCE_MASK);
+        }
+    }
+
+    long node() {
+        return node;
+    }
+
+    static String format(long id) {
+        char[] out = new char[PREFIX.length() + LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), out, 0);
+        for (int i = out.length - 1; i >= PREFIX.length(); i--) {
+            out[i] = DIGITS[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(out);
+    }
+}
@@ -0,0 +1,245 @@
+package com.example.demo.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.StatementJob;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Statement exports. Small ranges are streamed straight from a Mongo cursor to the
+ * response; larger ones run as jobs on a small dedicated pool that writes the statement
+ * to a local file, which is kept until it expires.
+ */
+@Component
+public class StatementService {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementService.class);
+    private static final String CSV_HEADER = "transactionId,timestamp,type,amount,status,sourceAccount,destinationAccount";
+
+    private final TransactionRepository txnRepo;
+    private final ObjectMapper mapper;
+    private final Path dir;
+    private final int batchSize;
+    private final long maxSyncDays;
+    private final Duration ttl;
+    private final ThreadPoolExecutor workers;
+    private final Map<String, StatementJob> jobs = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    public StatementService(TransactionRepository txnRepo,
+                            ObjectMapper mapper,
+                            @Value("${statements.export.dir:${java.io.tmpdir}/statements}") String dir,
+                            @Value("${statements.export.batch-size:500}") int batchSize,
+                            @Value("${statements.export.max-sync-days:92}") long maxSyncDays,
+                            @Value("${statements.export.ttl-minutes:60}") long ttlMinutes,
+                            @Value("${statements.export.threads:1}") int threads,
+                            @Value("${statements.export.queue-size:16}") int queueSize,
+                            MeterRegistry registry) {
+        this.txnRepo = txnRepo;
+        this.mapper = mapper;
+        this.dir = Paths.get(dir);
+        this.batchSize = batchSize;
+        this.maxSyncDays = maxSyncDays;
+        this.ttl = Duration.ofMinutes(ttlMinutes);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize), r -> {
+                    Thread t = new Thread(r, "statement-export");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.MIN_PRIORITY);
+                    return t;
+                });
+
+        Gauge.builder("statements.export.queued", workers, w -> w.getQueue().size())
+                .description("Statement export jobs waiting for a worker").register(registry);
+        Gauge.builder("statements.export.jobs", jobs, Map::size)
+                .description("Statement export jobs being tracked").register(registry);
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        Files.createDirectories(dir);
+        // files left by a previous run have no job pointing at them any more
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(dir, "stmt-*")) {
+            for (Path file : leftovers) Files.deleteIfExists(file);
+        }
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "statement-sweeper");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleWithFixedDelay(this::expireQuietly, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        workers.shutdownNow();
+        if (sweeper != null) sweeper.shutdownNow();
+    }
+
+    public void write(String accountNumber, LocalDate from, LocalDate to, StatementFormat format, OutputStream out)
+            throws IOException {
+        checkRange(from, to);
+        if (ChronoUnit.DAYS.between(from, to) >= maxSyncDays)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Statement range exceeds " + maxSyncDays + " days, request an export job instead");
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        writeStatement(accountNumber, from, to, format, writer);
+        writer.flush();
+    }
+
+    public StatementJob submit(String accountNumber, LocalDate from, LocalDate to, StatementFormat format) {
+        checkRange(from, to);
+        StatementJob job = new StatementJob("stmt-" + UUID.randomUUID(), accountNumber, from, to,
+                format.name().toLowerCase(), Instant.now());
+        jobs.put(job.getId(), job);
+        try {
+            workers.execute(() -> run(job, format));
+        } catch (RejectedExecutionException ex) {
+            jobs.remove(job.getId());
+            throw new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Too many statement exports queued");
+        }
+        return job;
+    }
+
+    public StatementJob getJob(String id) {
+        StatementJob job = jobs.get(id);
+        if (job == null)
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Statement job not found or expired");
+        return job;
+    }
+
+    public StatementJob readyJob(String id) {
+        StatementJob job = getJob(id);
+        if (job.getStatus() != StatementJob.Status.READY)
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Statement job is " + job.getStatus());
+        return job;
+    }
+
+    void run(StatementJob job, StatementFormat format) {
+        job.setStatus(StatementJob.Status.RUNNING);
+        Path part = dir.resolve(job.getId() + ".part");
+        try {
+            try (Writer writer = Files.newBufferedWriter(part, StandardCharsets.UTF_8)) {
+                job.setRows(writeStatement(job.getAccountNumber(), job.getFrom(), job.getTo(), format, writer));
+            }
+            Path file = Files.move(part, dir.resolve(job.getId() + "." + format.extension()),
+                    StandardCopyOption.ATOMIC_MOVE);
+            job.setFile(file);
+            job.setStatus(StatementJob.Status.READY);
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Statement export {} failed: {}", job.getId(), ex.getMessage());
+            deleteQuietly(part);
+            job.setError(ex.getMessage());
+            job.setStatus(StatementJob.Status.FAILED);
+        }
+        job.setExpiresAt(Instant.now().plus(ttl));
+    }
+
+    // drops finished jobs past their expiry together with their files
+    void expire(Instant now) {
+        jobs.values().removeIf(job -> {
+            if (job.getExpiresAt() == null || job.getExpiresAt().isAfter(now)) return false;
+            if (job.getFile() != null) deleteQuietly(job.getFile());
+            return true;
+        });
+    }
+
+    private void expireQuietly() {
+        try {
+            expire(Instant.now());
+        } catch (RuntimeException ex) {
+            log.warn("Statement sweep failed: {}", ex.getMessage());
+        }
+    }
+
+    private long writeStatement(String accountNumber, LocalDate from, LocalDate to, StatementFormat format,
+                                Writer writer) throws IOException {
+        Instant start = from.atStartOfDay(ZoneOffset.UTC).toInstant();
+        Instant end = to.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant();
+        if (format == StatementFormat.CSV) writer.write(CSV_HEADER + "\n");
+        long rows = 0;
+        try (Stream<Transaction> txns = txnRepo.streamStatement(accountNumber, start, end, batchSize)) {
+            Iterator<Transaction> it = txns.iterator();
+            while (it.hasNext()) {
+                Transaction txn = it.next();
+                writer.write(format == StatementFormat.CSV ? csv(txn) : mapper.writeValueAsString(txn));
+                writer.write('\n');
+                rows++;
+            }
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+        return rows;
+    }
+
+    private static String csv(Transaction txn) {
+        return String.join(",",
+                field(txn.getTransactionId()),
+                field(txn.getTimestamp() == null ? null : txn.getTimestamp().toString()),
+                field(txn.getType()),
+                Double.toString(txn.getAmount()),
+                field(txn.getStatus()),
+                field(txn.getSourceAccount()),
+                field(txn.getDestinationAccount()));
+    }
+
+    private static String field(String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static void checkRange(LocalDate from, LocalDate to) {
+        if (from.isAfter(to))
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Could not delete statement file {}: {}", file, ex.getMessage());
+        }
+    }
+}
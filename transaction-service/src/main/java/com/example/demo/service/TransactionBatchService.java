@@ -0,0 +1,267 @@
+package com.example.demo.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.clients.AccountClient;
+import com.example.demo.clients.AccountDTO;
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.clients.PostingResultDTO;
+import com.example.demo.models.BatchOutcome;
+import com.example.demo.models.BatchResult;
+import com.example.demo.models.MinorUnitsConverter;
+import com.example.demo.models.Transaction;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Bulk deposits, withdrawals and transfers. Items are taken in chunks; each chunk is
+ * one postings call to account-service, which applies it in order and writes each
+ * account once, followed by one bulk insert of the resulting transactions. A chunk whose
+ * call failed after it may have reached account-service (a timeout or a 5xx) is recorded
+ * FAILED with its outcome reported as unknown, so clients check before resubmitting it.
+ */
+@Service
+public class TransactionBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionBatchService.class);
+    private static final TypeReference<Map<String,Object>> ITEM = new TypeReference<>() {};
+
+    private final AccountClient accountClient;
+    private final TransactionLedger ledger;
+    private final ObjectMapper mapper;
+    private final TransactionIdGenerator ids;
+    private final int maxItems;
+    private final int chunkSize;
+
+    public TransactionBatchService(AccountClient accountClient,
+                                   TransactionLedger ledger,
+                                   ObjectMapper mapper,
+                                   TransactionIdGenerator ids,
+                                   @Value("${transactions.batch.max-items:100000}") int maxItems,
+                                   @Value("${transactions.batch.chunk-size:2000}") int chunkSize) {
+        this.accountClient = accountClient;
+        this.ledger = ledger;
+        this.mapper = mapper;
+        this.ids = ids;
+        this.maxItems = maxItems;
+        this.chunkSize = chunkSize;
+    }
+
+    public BatchResult submit(List<Map<String,Object>> items) {
+        if (items.size() > maxItems)
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "At most " + maxItems + " operations per batch");
+        return submit(items.iterator());
+    }
+
+    // one JSON operation per line, read as the chunks are processed
+    public BatchResult submitNdjson(BufferedReader in) throws IOException {
+        try {
+            return submit(new NdjsonItems(in));
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause();
+        }
+    }
+
+    private BatchResult submit(Iterator<Map<String,Object>> items) {
+        List<BatchOutcome> results = new ArrayList<>();
+        List<Map<String,Object>> chunk = new ArrayList<>(chunkSize);
+        while (items.hasNext()) {
+            if (results.size() + chunk.size() >= maxItems)
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "At most " + maxItems + " operations per batch; the first " + results.size() + " were applied");
+            chunk.add(items.next());
+            if (chunk.size() == chunkSize) {
+                process(chunk, results.size(), results);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) process(chunk, results.size(), results);
+
+        int succeeded = 0, rejected = 0, failed = 0;
+        for (BatchOutcome outcome : results) {
+            switch (outcome.status()) {
+                case "SUCCESS" -> succeeded++;
+                case "FAILED" -> failed++;
+                default -> rejected++;
+            }
+        }
+        return new BatchResult(succeeded, rejected, failed, results);
+    }
+
+    private void process(List<Map<String,Object>> chunk, int offset, List<BatchOutcome> results) {
+        BatchOutcome[] outcomes = new BatchOutcome[chunk.size()];
+        List<Transaction> pending = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+        List<Map<String,Object>> postings = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Transaction t = parse(chunk.get(i));
+            if (t == null) {
+                outcomes[i] = new BatchOutcome(offset + i, null, "REJECTED", "Invalid operation");
+                continue;
+            }
+            Map<String,Object> posting = new HashMap<>();
+            posting.put("from", t.getSourceAccount());
+            posting.put("to", t.getDestinationAccount());
+            posting.put("amount", t.getAmount());
+            postings.add(posting);
+            pending.add(t);
+            positions.add(i);
+        }
+
+        List<Transaction> recorded = new ArrayList<>(pending.size());
+        List<NotificationPayload> notifications = new ArrayList<>();
+        if (!pending.isEmpty()) {
+            PostingResultDTO posted = null;
+            boolean unknown = false;
+            try {
+                posted = accountClient.applyPostings(postings);
+            } catch (RuntimeException ex) {
+                unknown = !TransactionService.notApplied(ex);
+                log.warn("Posting batch of {} failed{}: {}", pending.size(),
+                        unknown ? " with an unknown outcome" : "", ex.getMessage());
+            }
+            Map<String, String> holders = new HashMap<>();
+            if (posted != null)
+                for (AccountDTO acc : posted.getAccounts()) holders.put(acc.getAccountNumber(), acc.getHolderName());
+
+            for (int j = 0; j < pending.size(); j++) {
+                Transaction t = pending.get(j);
+                int i = positions.get(j);
+                String error = posted == null ? null : posted.getErrors().get(j);
+                if (error != null) {
+                    outcomes[i] = new BatchOutcome(offset + i, null, "REJECTED", error);
+                    continue;
+                }
+                t.setStatus(posted == null ? "FAILED" : "SUCCESS");
+                t.setOutcomeUnknown(unknown);
+                recorded.add(t);
+                if (posted != null) notifications.addAll(notify(t, holders));
+                outcomes[i] = new BatchOutcome(offset + i, t.getTransactionId(), t.getStatus(),
+                        posted != null ? null
+                                : unknown ? "Outcome unknown: account service may have applied it"
+                                : "Account service unavailable");
+            }
+            if (posted != null) runningBalances(recorded, posted.getAccounts());
+        }
+        ledger.recordAll(recorded, notifications);
+        results.addAll(List.of(outcomes));
+    }
+
+    // The postings call returns each account's balance after the whole chunk; walking the
+    // applied postings backwards recovers the balance after each one, in minor units.
+    private static void runningBalances(List<Transaction> applied, List<AccountDTO> accounts) {
+        Map<String, Long> balances = new HashMap<>();
+        for (AccountDTO acc : accounts) balances.put(acc.getAccountNumber(), MinorUnitsConverter.toMinor(acc.getBalance()));
+        for (int j = applied.size() - 1; j >= 0; j--) {
+            Transaction t = applied.get(j);
+            long amount = MinorUnitsConverter.toMinor(t.getAmount());
+            Long dest = balances.get(t.getDestinationAccount());
+            if (dest != null) {
+                t.setDestinationBalance(dest / 100.0);
+                balances.put(t.getDestinationAccount(), dest - amount);
+            }
+            Long source = balances.get(t.getSourceAccount());
+            if (source != null) {
+                t.setSourceBalance(source / 100.0);
+                balances.put(t.getSourceAccount(), source + amount);
+            }
+        }
+    }
+
+    // null when the item is not a well-formed operation
+    private Transaction parse(Map<String,Object> item) {
+        if (item == null || !(item.get("type") instanceof String type) || !(item.get("amount") instanceof Number amount))
+            return null;
+        Transaction t = new Transaction();
+        t.setType(type.toUpperCase(Locale.ROOT));
+        switch (t.getType()) {
+            case "DEPOSIT" -> t.setDestinationAccount(string(item, "accountNumber"));
+            case "WITHDRAW" -> t.setSourceAccount(string(item, "accountNumber"));
+            case "TRANSFER" -> {
+                t.setSourceAccount(string(item, "fromAccount"));
+                t.setDestinationAccount(string(item, "toAccount"));
+                if (t.getSourceAccount() == null || t.getDestinationAccount() == null) return null;
+            }
+            default -> {
+                return null;
+            }
+        }
+        if (t.getSourceAccount() == null && t.getDestinationAccount() == null) return null;
+        t.setTransactionId(ids.next());
+        t.setAmount(amount.doubleValue());
+        t.setTimestamp(Instant.now());
+        return t;
+    }
+
+    private static String string(Map<String,Object> item, String key) {
+        return item.get(key) instanceof String s && !s.isBlank() ? s : null;
+    }
+
+    private static List<NotificationPayload> notify(Transaction t, Map<String, String> holders) {
+        double amount = t.getAmount();
+        return switch (t.getType()) {
+            case "DEPOSIT" -> List.of(new NotificationPayload(t.getTransactionId(),
+                    "Deposit of " + amount + " completed.", holders.get(t.getDestinationAccount())));
+            case "WITHDRAW" -> List.of(new NotificationPayload(t.getTransactionId(),
+                    "Withdrawal of " + amount + " completed.", holders.get(t.getSourceAccount())));
+            default -> List.of(
+                    new NotificationPayload(t.getTransactionId(),
+                            "You sent ₹" + amount + " to " + t.getDestinationAccount(), holders.get(t.getSourceAccount())),
+                    new NotificationPayload(t.getTransactionId(),
+                            "You received ₹" + amount + " from " + t.getSourceAccount(), holders.get(t.getDestinationAccount())));
+        };
+    }
+
+    private final class NdjsonItems implements Iterator<Map<String,Object>> {
+        private final BufferedReader in;
+        private String line;
+
+        NdjsonItems(BufferedReader in) {
+            this.in = in;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (line == null) {
+                    String next = in.readLine();
+                    if (next == null) return false;
+                    if (!next.isBlank()) line = next;
+                }
+                return true;
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+
+        @Override
+        public Map<String,Object> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            String current = line;
+            line = null;
+            try {
+                return mapper.readValue(current, ITEM);
+            } catch (IOException ex) {
+                // reported as an invalid operation rather than failing the rest of the stream
+                return null;
+            }
+        }
+    }
+}
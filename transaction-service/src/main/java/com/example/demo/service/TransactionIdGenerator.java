@@ -0,0 +1,7 @@
+package com.example.demo.service;
+
+// Supplies transaction ids, which are also the documents' _id.
+public interface TransactionIdGenerator {
+
+    String next();
+}
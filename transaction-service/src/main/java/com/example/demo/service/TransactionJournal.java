@@ -0,0 +1,321 @@
+package com.example.demo.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.example.demo.models.JournalEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Local write-ahead journal for the optional journal durability mode. Records are appended
+ * to memory-mapped segment files as [length][crc32][json]; concurrent appenders share one
+ * msync per group commit and return once their records are on local disk. Positions are
+ * packed as (segment << 32 | offset). The shipper reads durable records, writes them to
+ * Mongo and acknowledges them, which checkpoints the position and drops shipped segments.
+ */
+@Component
+public class TransactionJournal {
+
+    private static final String PREFIX = "journal-";
+    private static final String SUFFIX = ".log";
+    private static final String CHECKPOINT = "shipped.checkpoint";
+    private static final int HEADER = 8;
+
+    private final ObjectMapper mapper;
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentSize;
+
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private MappedByteBuffer segment;
+    private long segmentNo;
+    private int writePos;
+
+    private final ReentrantLock syncLock = new ReentrantLock();
+    private final Condition synced = syncLock.newCondition();
+    private boolean syncing;
+    private volatile long durable;
+
+    // read side, used by the shipper thread only
+    private final TreeMap<Long, MappedByteBuffer> readers = new TreeMap<>();
+    private volatile long shipped;
+
+    private final LongAdder appends = new LongAdder();
+    private final LongAdder fsyncs = new LongAdder();
+
+    public TransactionJournal(ObjectMapper mapper,
+                              @Value("${transactions.journal.enabled:false}") boolean enabled,
+                              @Value("${transactions.journal.dir:${java.io.tmpdir}/transaction-journal}") String dir,
+                              @Value("${transactions.journal.segment-size-mb:64}") int segmentSizeMb,
+                              MeterRegistry registry) {
+        this.mapper = mapper;
+        this.enabled = enabled;
+        this.dir = Paths.get(dir);
+        this.segmentSize = segmentSizeMb << 20;
+
+        FunctionCounter.builder("transactions.journal.appends", appends, LongAdder::sum).register(registry);
+        FunctionCounter.builder("transactions.journal.fsyncs", fsyncs, LongAdder::sum)
+                .description("Group commits; appends per fsync is the batching factor").register(registry);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    void start() throws IOException {
+        if (!enabled) return;
+        Files.createDirectories(dir);
+        List<Long> segments = segments();
+        shipped = readCheckpoint(segments.isEmpty() ? 0 : segments.get(0));
+        segmentNo = segments.isEmpty() ? segment(shipped) : segments.get(segments.size() - 1);
+        segment = map(segmentNo, FileChannel.MapMode.READ_WRITE);
+        // whatever survived the restart is durable; a torn tail fails its crc and ends the segment
+        writePos = recover(segment);
+        segment.putInt(writePos, 0);
+        durable = pack(segmentNo, writePos);
+    }
+
+    // returns once every entry is on local disk
+    public void append(List<JournalEntry> entries) {
+        if (!enabled) throw new IllegalStateException("Transaction journal is disabled");
+        List<byte[]> payloads = new ArrayList<>(entries.size());
+        for (JournalEntry entry : entries) payloads.add(serialize(entry));
+        long end;
+        writeLock.lock();
+        try {
+            for (byte[] payload : payloads) write(payload);
+            end = pack(segmentNo, writePos);
+        } finally {
+            writeLock.unlock();
+        }
+        appends.add(entries.size());
+        awaitDurable(end);
+    }
+
+    private void write(byte[] payload) {
+        int size = HEADER + payload.length;
+        if (size + 4 > segmentSize)
+            throw new IllegalArgumentException("Journal record of " + payload.length + " bytes exceeds the segment size");
+        if (writePos + size + 4 > segmentSize) rotate();
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        segment.putInt(writePos + 4, (int) crc.getValue());
+        segment.put(writePos + HEADER, payload);
+        segment.putInt(writePos + size, 0);
+        // length goes in last so a half-written record reads as the end of the segment
+        segment.putInt(writePos, payload.length);
+        writePos += size;
+    }
+
+    private void rotate() {
+        segment.force();
+        fsyncs.increment();
+        try {
+            MappedByteBuffer next = map(segmentNo + 1, FileChannel.MapMode.READ_WRITE);
+            segmentNo++;
+            segment = next;
+            writePos = 0;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    // Group commit: one appender at a time forces the mapping for everyone written so far,
+    // the others wait and usually find their records already covered.
+    private void awaitDurable(long end) {
+        syncLock.lock();
+        try {
+            while (durable < end) {
+                if (syncing) {
+                    synced.awaitUninterruptibly();
+                    continue;
+                }
+                syncing = true;
+                syncLock.unlock();
+                long target = 0;
+                try {
+                    target = force();
+                } finally {
+                    syncLock.lock();
+                    syncing = false;
+                    if (target > durable) durable = target;
+                    synced.signalAll();
+                }
+            }
+        } finally {
+            syncLock.unlock();
+        }
+    }
+
+    private long force() {
+        MappedByteBuffer current;
+        long target;
+        writeLock.lock();
+        try {
+            current = segment;
+            target = pack(segmentNo, writePos);
+        } finally {
+            writeLock.unlock();
+        }
+        current.force();
+        fsyncs.increment();
+        return target;
+    }
+
+    public long shipped() {
+        return shipped;
+    }
+
+    public long durable() {
+        return durable;
+    }
+
+    // bytes written but not yet acknowledged, approximate across segments
+    public long backlog() {
+        long d = durable, s = shipped;
+        return (segment(d) - segment(s)) * segmentSize + offset(d) - offset(s);
+    }
+
+    public record Batch(List<JournalEntry> entries, long next) {}
+
+    // up to max durable entries starting at from
+    public Batch read(long from, int max) throws IOException {
+        long limit = durable;
+        long pos = from;
+        List<JournalEntry> entries = new ArrayList<>();
+        while (entries.size() < max && pos < limit) {
+            long seg = segment(pos);
+            int off = offset(pos);
+            MappedByteBuffer buf = reader(seg);
+            int length = off + HEADER <= buf.capacity() ? buf.getInt(off) : 0;
+            if (length == 0) {
+                pos = pack(seg + 1, 0);
+                continue;
+            }
+            byte[] payload = new byte[length];
+            buf.get(off + HEADER, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buf.getInt(off + 4))
+                throw new IOException("Corrupt journal record at segment " + seg + " offset " + off);
+            entries.add(mapper.readValue(payload, JournalEntry.class));
+            pos = pack(seg, off + HEADER + length);
+        }
+        return new Batch(entries, pos);
+    }
+
+    // everything before position is in Mongo: checkpoint it and drop the segments it covers
+    public void acknowledge(long position) throws IOException {
+        Path tmp = dir.resolve(CHECKPOINT + ".tmp");
+        Files.writeString(tmp, segment(position) + " " + offset(position), StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(CHECKPOINT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        shipped = position;
+        for (Long seg : segments()) {
+            if (seg >= segment(position)) break;
+            readers.remove(seg);
+            Files.deleteIfExists(file(seg));
+        }
+    }
+
+    private MappedByteBuffer reader(long seg) throws IOException {
+        MappedByteBuffer buf = readers.get(seg);
+        if (buf == null) {
+            buf = map(seg, FileChannel.MapMode.READ_ONLY);
+            readers.put(seg, buf);
+            // older mappings are done with once the reader moves on
+            readers.headMap(seg).clear();
+        }
+        return buf;
+    }
+
+    private int recover(MappedByteBuffer buf) {
+        int pos = 0;
+        while (pos + HEADER <= segmentSize) {
+            int length = buf.getInt(pos);
+            if (length <= 0 || pos + HEADER + length > segmentSize) break;
+            byte[] payload = new byte[length];
+            buf.get(pos + HEADER, payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != buf.getInt(pos + 4)) break;
+            pos += HEADER + length;
+        }
+        return pos;
+    }
+
+    private long readCheckpoint(long fallbackSegment) throws IOException {
+        Path file = dir.resolve(CHECKPOINT);
+        if (!Files.exists(file)) return pack(fallbackSegment, 0);
+        String[] parts = Files.readString(file, StandardCharsets.UTF_8).trim().split(" ");
+        return pack(Long.parseLong(parts[0]), Integer.parseInt(parts[1]));
+    }
+
+    private List<Long> segments() throws IOException {
+        List<Long> segments = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, PREFIX + "*" + SUFFIX)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                segments.add(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())));
+            }
+        }
+        segments.sort(null);
+        return segments;
+    }
+
+    private MappedByteBuffer map(long seg, FileChannel.MapMode mode) throws IOException {
+        try (FileChannel channel = mode == FileChannel.MapMode.READ_WRITE
+                ? FileChannel.open(file(seg), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)
+                : FileChannel.open(file(seg), StandardOpenOption.READ)) {
+            return channel.map(mode, 0, segmentSize);
+        }
+    }
+
+    private Path file(long seg) {
+        return dir.resolve(String.format("%s%012d%s", PREFIX, seg, SUFFIX));
+    }
+
+    private byte[] serialize(JournalEntry entry) {
+        try {
+            return mapper.writeValueAsBytes(entry);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Cannot journal transaction", ex);
+        }
+    }
+
+    static long pack(long segment, int offset) {
+        return segment << 32 | offset;
+    }
+
+    static long segment(long position) {
+        return position >>> 32;
+    }
+
+    static int offset(long position) {
+        return (int) position;
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.demo.service;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.models.JournalEntry;
+import com.example.demo.models.OutboxEntry;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.DailySummaryRepository;
+import com.example.demo.repository.OutboxRepository;
+import com.example.demo.repository.TransactionRepository;
+
+@Component
+public class TransactionLedger {
+
+    private final TransactionRepository txnRepo;
+    private final OutboxRepository outbox;
+    private final TransactionOperations tx;
+    private final TransactionJournal journal;
+    private final DailySummaryRepository summaries;
+
+    public TransactionLedger(TransactionRepository txnRepo, OutboxRepository outbox, TransactionOperations tx,
+                             TransactionJournal journal, DailySummaryRepository summaries) {
+        this.txnRepo = txnRepo;
+        this.outbox = outbox;
+        this.tx = tx;
+        this.journal = journal;
+        this.summaries = summaries;
+    }
+
+    // The transaction, its notifications and the daily summary update commit together: no
+    // notification is lost, none is sent for a transaction that was never recorded, and the
+    // summaries count each transaction exactly once. In journal mode
+    // both land in the local journal together and reach Mongo through the shipper.
+    public Transaction record(Transaction t, List<NotificationPayload> notifications) {
+        if (journal.isEnabled()) {
+            journal.append(List.of(new JournalEntry(t, notifications)));
+            return t;
+        }
+        List<OutboxEntry> entries = outboxEntries(notifications);
+        return tx.execute(status -> {
+            Transaction saved = txnRepo.save(t);
+            if (!entries.isEmpty()) outbox.insert(entries);
+            summaries.applyAll(List.of(saved));
+            return saved;
+        });
+    }
+
+    // same guarantee for a whole batch, written with one bulk insert per collection
+    public void recordAll(List<Transaction> transactions, List<NotificationPayload> notifications) {
+        if (transactions.isEmpty()) return;
+        if (journal.isEnabled()) {
+            Map<String, List<NotificationPayload>> byTransaction = notifications.stream()
+                    .collect(Collectors.groupingBy(NotificationPayload::getTransactionId));
+            journal.append(transactions.stream()
+                    .map(t -> new JournalEntry(t, byTransaction.getOrDefault(t.getTransactionId(), List.of())))
+                    .toList());
+            return;
+        }
+        List<OutboxEntry> entries = outboxEntries(notifications);
+        tx.executeWithoutResult(status -> {
+            txnRepo.insert(transactions);
+            if (!entries.isEmpty()) outbox.insert(entries);
+            summaries.applyAll(transactions);
+        });
+    }
+
+    // Writes the outcome of a PENDING transaction, provided leaseOwner still holds its lease. The
+    // replayer reads the queue from Mongo, so this goes there directly in journal mode too.
+    public boolean settle(Transaction t, List<NotificationPayload> notifications, String leaseOwner) {
+        List<OutboxEntry> entries = outboxEntries(notifications);
+        return Boolean.TRUE.equals(tx.execute(status -> {
+            if (!txnRepo.completePending(t, leaseOwner)) return false;
+            if (!entries.isEmpty()) outbox.insert(entries);
+            summaries.applyAll(List.of(t));
+            return true;
+        }));
+    }
+
+    // Writes journaled entries to Mongo in one transaction. A replay after a crash finds the
+    // entries already there and skips them, so nothing is inserted or summarised twice.
+    public void ship(List<JournalEntry> entries) {
+        Instant now = Instant.now();
+        tx.executeWithoutResult(status -> {
+            Set<String> existing = txnRepo.findExistingIds(
+                    entries.stream().map(e -> e.transaction().getTransactionId()).toList());
+            List<Transaction> transactions = new ArrayList<>();
+            List<OutboxEntry> pending = new ArrayList<>();
+            for (JournalEntry entry : entries) {
+                if (existing.contains(entry.transaction().getTransactionId())) continue;
+                transactions.add(entry.transaction());
+                for (NotificationPayload n : entry.notifications())
+                    pending.add(new OutboxEntry(null, n.getTransactionId(), n.getMessage(), n.getTo(), now, now, 0, null, null));
+            }
+            if (transactions.isEmpty()) return;
+            txnRepo.insert(transactions);
+            if (!pending.isEmpty()) outbox.insert(pending);
+            summaries.applyAll(transactions);
+        });
+    }
+
+    private static List<OutboxEntry> outboxEntries(List<NotificationPayload> notifications) {
+        Instant now = Instant.now();
+        return notifications.stream()
+                .map(n -> new OutboxEntry(null, n.getTransactionId(), n.getMessage(), n.getTo(), now, now, 0, null, null))
+                .toList();
+    }
+}
@@ -3,107 +3,102 @@ package com.example.demo.service;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.example.demo.clients.AccountClient;
 import com.example.demo.clients.AccountDTO;
 import com.example.demo.clients.NotificationPayload;
-import com.example.demo.clients.NotificationClient;
+import com.example.demo.clients.TransferResultDTO;
 import com.example.demo.models.Transaction;
+import com.example.demo.models.TransactionPage;
 import com.example.demo.repository.TransactionRepository;
 
+import feign.FeignException;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 
 @Service
 public class TransactionService {
 
+    private static final Logger log = LoggerFactory.getLogger(TransactionService.class);
+
+    static final int MAX_PAGE_SIZE = 1000;
+
     private final TransactionRepository txnRepo;
     private final AccountClient accountClient;
-    private final NotificationClient notificationClient;
+    private final TransactionLedger ledger;
+    private final AccountLanes lanes;
+    private final TransactionIdGenerator ids;
+    private final PendingQueue pending;
 
     public TransactionService(TransactionRepository txnRepo,
                               AccountClient accountClient,
-                              NotificationClient notificationClient) {
+                              TransactionLedger ledger,
+                              AccountLanes lanes,
+                              TransactionIdGenerator ids,
+                              PendingQueue pending) {
         this.txnRepo = txnRepo;
         this.accountClient = accountClient;
-        this.notificationClient = notificationClient;
+        this.ledger = ledger;
+        this.lanes = lanes;
+        this.ids = ids;
+        this.pending = pending;
+    }
+
+    public Transaction getTransaction(String transactionId) {
+        return txnRepo.findById(transactionId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Transaction not found"));
     }
 
 
-    public List<Transaction> getTransactionsForAccount(String accountNumber) {
-        return txnRepo.findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-                accountNumber, accountNumber
-        );
+    public TransactionPage getTransactionsForAccount(String accountNumber, String before, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE)
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_PAGE_SIZE);
+
+        Instant beforeTimestamp = null;
+        String beforeId = null;
+        if (before != null) {
+            // cursor is "<epoch millis>:<transaction id>" of the last entry already seen
+            int sep = before.indexOf(':');
+            try {
+                beforeTimestamp = Instant.ofEpochMilli(Long.parseLong(before.substring(0, sep)));
+                beforeId = before.substring(sep + 1);
+            } catch (RuntimeException ex) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        // one extra row tells us whether an older page exists
+        List<Transaction> rows = txnRepo.findHistory(accountNumber, beforeTimestamp, beforeId, limit + 1);
+        if (rows.size() <= limit)
+            return new TransactionPage(rows, null);
+        List<Transaction> page = rows.subList(0, limit);
+        Transaction last = page.get(limit - 1);
+        return new TransactionPage(page, last.getTimestamp().toEpochMilli() + ":" + last.getTransactionId());
     }
 
 
-    @CircuitBreaker(name = "accountServiceCB", fallbackMethod = "fallbackTransaction")
+    @CircuitBreaker(name = "accountServiceCB", fallbackMethod = "fallbackDeposit")
     public Transaction deposit(String accountNumber, double amount) {
 
         if (amount <= 0)
             throw new IllegalArgumentException("Amount must be positive");
 
-        AccountDTO acc = accountClient.getAccount(accountNumber);
-
-        double newBalance = acc.getBalance() + amount;
-
-        accountClient.updateBalance(accountNumber, Map.of("balance", newBalance));
-
-        Transaction t = new Transaction();
-        t.setTransactionId("TXN-" + UUID.randomUUID());
-        t.setType("DEPOSIT");
-        t.setAmount(amount);
-        t.setTimestamp(Instant.now());
-        t.setStatus("SUCCESS");
-
-        txnRepo.save(t);
-
-        notificationClient.sendNotification(
-                new NotificationPayload(
-                        t.getTransactionId(),
-                        "Deposit of " + amount + " completed.",
-                        acc.getHolderName()
-                )
-        );
-
-        return t;
+        return lanes.run(accountNumber, () -> record(newTransaction("DEPOSIT", null, accountNumber, amount)));
     }
 
-    @CircuitBreaker(name = "accountServiceCB", fallbackMethod = "fallbackTransaction")
+    @CircuitBreaker(name = "accountServiceCB", fallbackMethod = "fallbackWithdraw")
     public Transaction withdraw(String accountNumber, double amount) {
 
         if (amount <= 0)
             throw new IllegalArgumentException("Amount must be positive");
 
-        AccountDTO acc = accountClient.getAccount(accountNumber);
-
-        if (acc.getBalance() < amount)
-            throw new IllegalArgumentException("Insufficient funds");
-
-        double newBalance = acc.getBalance() - amount;
-
-        accountClient.updateBalance(accountNumber, Map.of("balance", newBalance));
-
-        Transaction t = new Transaction();
-        t.setTransactionId("TXN-" + UUID.randomUUID());
-        t.setType("WITHDRAW");
-        t.setAmount(amount);
-        t.setTimestamp(Instant.now());
-        t.setStatus("SUCCESS");
-
-        txnRepo.save(t);
-
-        notificationClient.sendNotification(
-                new NotificationPayload(
-                        t.getTransactionId(),
-                        "Withdrawal of " + amount + " completed.",
-                        acc.getHolderName()
-                )
-        );
-
-        return t;
+        return lanes.run(accountNumber, () -> record(newTransaction("WITHDRAW", accountNumber, null, amount)));
     }
 
 
@@ -116,71 +111,151 @@ public class TransactionService {
         if (fromAccount.equals(toAccount))
             throw new IllegalArgumentException("Cannot transfer to same account");
 
-        AccountDTO source = accountClient.getAccount(fromAccount);
-        AccountDTO dest = accountClient.getAccount(toAccount);
-
-        if (source.getBalance() < amount)
-            throw new IllegalArgumentException("Insufficient balance");
-
-        accountClient.updateBalance(fromAccount, Map.of("balance", source.getBalance() - amount));
-
-
-        accountClient.updateBalance(toAccount, Map.of("balance", dest.getBalance() + amount));
+        return lanes.run(fromAccount, toAccount, () -> record(newTransaction("TRANSFER", fromAccount, toAccount, amount)));
+    }
 
-        Transaction t = new Transaction();
-        t.setTransactionId("TXN-" + UUID.randomUUID());
-        t.setType("TRANSFER");
-        t.setAmount(amount);
-        t.setTimestamp(Instant.now());
-        t.setStatus("SUCCESS");
-        t.setSourceAccount(fromAccount);
-        t.setDestinationAccount(toAccount);
+    // Completes a PENDING transaction accepted while account-service was unavailable. Runs in
+    // the same lanes as live traffic. A call that again never reached account-service leaves
+    // it PENDING; any other failure settles it as FAILED, because after a timeout or a 5xx a
+    // second attempt could apply it twice. Such an ambiguous failure is rethrown once settled,
+    // so the replayer's breaker counts it. Returns t still PENDING if the lease was lost.
+    public Transaction settle(Transaction t) {
+        Supplier<Transaction> apply = () -> {
+            // the lane may have kept us waiting: renew the lease so it covers the whole call
+            if (!pending.claim(t)) return t;
+            List<NotificationPayload> notifications;
+            RuntimeException unknown = null;
+            try {
+                notifications = apply(t);
+            } catch (RuntimeException ex) {
+                if (PendingQueue.neverReached(ex)) throw ex;
+                t.setStatus("FAILED");
+                t.setOutcomeUnknown(!notApplied(ex));
+                if (t.isOutcomeUnknown()) unknown = ex;
+                notifications = List.of();
+            }
+            t.setTimestamp(Instant.now());
+            if (!ledger.settle(t, notifications, pending.owner()))
+                log.error("Lost the lease on {} while settling it as {}", t.getTransactionId(), t.getStatus());
+            if (unknown != null) throw unknown;
+            return t;
+        };
+        String first = t.getSourceAccount() != null ? t.getSourceAccount() : t.getDestinationAccount();
+        String second = t.getDestinationAccount() != null ? t.getDestinationAccount() : t.getSourceAccount();
+        return lanes.run(first, second, apply);
+    }
 
-        txnRepo.save(t);
+    private Transaction record(Transaction t) {
+        ledger.record(t, apply(t));
+        return t;
+    }
 
+    // moves the money in account-service and marks t SUCCESS; returns the notifications to send
+    private List<NotificationPayload> apply(Transaction t) {
+        double amount = t.getAmount();
+        switch (t.getType()) {
+            case "DEPOSIT" -> {
+                AccountDTO acc = accountClient.applyBalanceDelta(t.getDestinationAccount(), Map.of("amount", amount));
+                t.setStatus("SUCCESS");
+                t.setDestinationBalance(acc.getBalance());
+                return List.of(
+                        new NotificationPayload(
+                                t.getTransactionId(),
+                                "Deposit of " + amount + " completed.",
+                                acc.getHolderName()
+                        )
+                );
+            }
+            case "WITHDRAW" -> {
+                AccountDTO acc = debit(t.getSourceAccount(), amount, "Insufficient funds");
+                t.setStatus("SUCCESS");
+                t.setSourceBalance(acc.getBalance());
+                return List.of(
+                        new NotificationPayload(
+                                t.getTransactionId(),
+                                "Withdrawal of " + amount + " completed.",
+                                acc.getHolderName()
+                        )
+                );
+            }
+            default -> {
+                TransferResultDTO result;
+                try {
+                    result = accountClient.transfer(Map.of("from", t.getSourceAccount(), "to", t.getDestinationAccount(),
+                            "amount", amount));
+                } catch (FeignException.Conflict ex) {
+                    throw new IllegalArgumentException("Insufficient balance");
+                }
+                AccountDTO source = result.getFrom();
+                AccountDTO dest = result.getTo();
+                t.setStatus("SUCCESS");
+                t.setSourceBalance(source.getBalance());
+                t.setDestinationBalance(dest.getBalance());
+                return List.of(
+                        new NotificationPayload(
+                                t.getTransactionId(),
+                                "You sent ₹" + amount + " to " + t.getDestinationAccount(),
+                                source.getHolderName()
+                        ),
+                        new NotificationPayload(
+                                t.getTransactionId(),
+                                "You received ₹" + amount + " from " + t.getSourceAccount(),
+                                dest.getHolderName()
+                        )
+                );
+            }
+        }
+    }
 
-        notificationClient.sendNotification(
-                new NotificationPayload(
-                        t.getTransactionId(),
-                        "You sent ₹" + amount + " to " + toAccount,
-                        source.getHolderName()
-                )
-        );
+    private AccountDTO debit(String accountNumber, double amount, String insufficientMessage) {
+        try {
+            return accountClient.applyBalanceDelta(accountNumber,
+                    Map.of("amount", -amount, "requireNonNegative", true));
+        } catch (FeignException.Conflict ex) {
+            throw new IllegalArgumentException(insufficientMessage);
+        }
+    }
 
-        notificationClient.sendNotification(
-                new NotificationPayload(
-                        t.getTransactionId(),
-                        "You received ₹" + amount + " from " + fromAccount,
-                        dest.getHolderName()
-                )
-        );
+    public Transaction fallbackDeposit(String accountNumber, double amount, Throwable ex) {
+        return fallback(newTransaction("DEPOSIT", null, accountNumber, amount), ex);
+    }
 
-        return t;
+    public Transaction fallbackWithdraw(String accountNumber, double amount, Throwable ex) {
+        return fallback(newTransaction("WITHDRAW", accountNumber, null, amount), ex);
     }
 
-    public Transaction fallbackTransaction(String accountNumber, double amount, Throwable ex) {
+    public Transaction fallbackTransactionTransfer(String from, String to, double amount, Throwable ex) {
+        return fallback(newTransaction("TRANSFER", from, to, amount), ex);
+    }
 
-        Transaction t = new Transaction();
-        t.setTransactionId("TXN-" + UUID.randomUUID());
-        t.setTimestamp(Instant.now());
-        t.setStatus("FAILED");
-        t.setAmount(amount);
+    // In degraded mode an operation that could not reach account-service is queued as PENDING
+    // for the replayer instead of failing outright. A busy lane is the caller's 503, not a
+    // transaction.
+    private Transaction fallback(Transaction t, Throwable ex) {
+        if (ex instanceof AccountLanes.BusyException busy) throw busy;
+        t.setStatus(pending.accepts(ex) ? "PENDING" : "FAILED");
+        t.setOutcomeUnknown("FAILED".equals(t.getStatus()) && !notApplied(ex));
+        return ledger.record(t, List.of());
+    }
 
-        txnRepo.save(t);
-        return t;
+    // account-service refused the call or never received it, so no money moved
+    static boolean notApplied(Throwable ex) {
+        return ex instanceof IllegalArgumentException
+                || ex instanceof AccountLanes.BusyException
+                || ex instanceof FeignException fe && fe.status() >= 400 && fe.status() < 500
+                || PendingQueue.neverReached(ex);
     }
 
-    public Transaction fallbackTransactionTransfer(String from, String to, double amount, Throwable ex) {
+
+    private Transaction newTransaction(String type, String from, String to, double amount) {
 
         Transaction t = new Transaction();
-        t.setTransactionId("TXN-" + UUID.randomUUID());
+        t.setTransactionId(ids.next());
+        t.setType(type);
         t.setTimestamp(Instant.now());
-        t.setStatus("FAILED");
         t.setSourceAccount(from);
         t.setDestinationAccount(to);
         t.setAmount(amount);
-
-        txnRepo.save(t);
         return t;
     }
 }
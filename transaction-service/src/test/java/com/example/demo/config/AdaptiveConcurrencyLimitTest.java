@@ -0,0 +1,61 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long RTT = TimeUnit.MILLISECONDS.toNanos(20);
+
+    // keeps the limit fully used while feeding samples of the given latency
+    private static void saturate(AdaptiveConcurrencyLimit limit, long rttNanos, int samples) {
+        for (int i = 0; i < samples; i++) {
+            while (limit.tryAcquire()) { }
+            limit.release(rttNanos);
+        }
+    }
+
+    @Test
+    void testTryAcquire_RejectsAtLimit() {
+
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(2, 1, 10, 1.5);
+
+
+        assertTrue(limit.tryAcquire());
+        assertTrue(limit.tryAcquire());
+        assertFalse(limit.tryAcquire());
+
+
+        assertEquals(2, limit.inflight());
+    }
+
+    @Test
+    void testRelease_SteadyLatency_GrowsToMax() {
+
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(10, 4, 100, 1.5);
+
+
+        saturate(limit, RTT, 500);
+
+
+        assertEquals(100, limit.limit());
+    }
+
+    @Test
+    void testRelease_RisingLatency_Shrinks() {
+
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(50, 4, 100, 1.5);
+        saturate(limit, RTT, 200);
+        int before = limit.limit();
+
+
+        saturate(limit, RTT * 4, 30);
+
+
+        assertTrue(limit.limit() < before / 2, "limit " + limit.limit() + " from " + before);
+        assertTrue(limit.limit() >= 4);
+    }
+}
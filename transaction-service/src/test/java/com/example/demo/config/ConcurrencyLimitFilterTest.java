@@ -0,0 +1,52 @@
+package com.example.demo.config;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+
+class ConcurrencyLimitFilterTest {
+
+    @Test
+    void testDoFilter_OverLimit_ShedsWithRetryAfter() throws Exception {
+
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 1, 1, 1, 1.5, 2, registry);
+        MockHttpServletResponse shed = new MockHttpServletResponse();
+        // the first request is still in flight when the second arrives
+        FilterChain slow = (req, res) -> filter.doFilter(
+                new MockHttpServletRequest("POST", "/api/transactions/deposit"), shed, new MockFilterChain());
+
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/transactions/deposit"),
+                new MockHttpServletResponse(), slow);
+
+
+        assertEquals(503, shed.getStatus());
+        assertEquals("2", shed.getHeader("Retry-After"));
+        assertEquals(1, registry.get("transactions.limiter.rejected").counter().count());
+        assertEquals(0, registry.get("transactions.limiter.inflight").gauge().value());
+    }
+
+    @Test
+    void testDoFilter_StatementDownloadsNotCounted() throws Exception {
+
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(true, 1, 1, 1, 1.5, 1, new SimpleMeterRegistry());
+        MockHttpServletResponse download = new MockHttpServletResponse();
+        FilterChain slow = (req, res) -> filter.doFilter(
+                new MockHttpServletRequest("GET", "/api/transactions/account/ACC001/statement"), download,
+                new MockFilterChain());
+
+
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/transactions/deposit"),
+                new MockHttpServletResponse(), slow);
+
+
+        assertEquals(200, download.getStatus());
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.demo.controller;
 
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
@@ -12,17 +16,34 @@ import java.util.Map;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
+import com.example.demo.models.AccountSummary;
+import com.example.demo.models.BatchOutcome;
+import com.example.demo.models.BatchResult;
+import com.example.demo.models.StatementJob;
 import com.example.demo.models.Transaction;
+import com.example.demo.models.TransactionPage;
+import com.example.demo.service.AccountSummaryService;
+import com.example.demo.service.IdempotentExecutor;
+import com.example.demo.service.ReconciliationService;
+import com.example.demo.service.StatementFormat;
+import com.example.demo.service.StatementService;
+import com.example.demo.service.TransactionBatchService;
 import com.example.demo.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.boot.webmvc.test.autoconfigure.WebMvcTest;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @WebMvcTest(TransactionController.class)
+// the concurrency limit filter is part of the slice and registers its meters
+@Import(SimpleMeterRegistry.class)
 class TransactionControllerTest {
 
     @Autowired
@@ -31,6 +52,21 @@ class TransactionControllerTest {
     @MockitoBean
     private TransactionService transactionService;
 
+    @MockitoBean
+    private IdempotentExecutor idempotentExecutor;
+
+    @MockitoBean
+    private StatementService statementService;
+
+    @MockitoBean
+    private TransactionBatchService batchService;
+
+    @MockitoBean
+    private AccountSummaryService summaryService;
+
+    @MockitoBean
+    private ReconciliationService reconciliationService;
+
     @Autowired
     private ObjectMapper objectMapper;
 
@@ -201,8 +237,8 @@ class TransactionControllerTest {
 
         List<Transaction> transactions = Arrays.asList(txn1, txn2);
 
-        when(transactionService.getTransactionsForAccount(accountNumber))
-                .thenReturn(transactions);
+        when(transactionService.getTransactionsForAccount(accountNumber, null, 100))
+                .thenReturn(new TransactionPage(transactions, null));
 
 
         mockMvc.perform(get("/api/transactions/account/{number}", accountNumber))
@@ -216,7 +252,7 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$[1].type").value("WITHDRAW"))
                 .andExpect(jsonPath("$[1].amount").value(500.0));
 
-        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber);
+        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber, null, 100);
     }
 
     @Test
@@ -224,8 +260,8 @@ class TransactionControllerTest {
  
         String accountNumber = "ACC999";
 
-        when(transactionService.getTransactionsForAccount(accountNumber))
-                .thenReturn(Arrays.asList());
+        when(transactionService.getTransactionsForAccount(accountNumber, null, 100))
+                .thenReturn(new TransactionPage(Arrays.asList(), null));
 
    
         mockMvc.perform(get("/api/transactions/account/{number}", accountNumber))
@@ -233,7 +269,7 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$").isArray())
                 .andExpect(jsonPath("$.length()").value(0));
 
-        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber);
+        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber, null, 100);
     }
 
     @Test
@@ -260,8 +296,8 @@ class TransactionControllerTest {
 
         List<Transaction> transactions = Arrays.asList(deposit, withdraw, transfer);
 
-        when(transactionService.getTransactionsForAccount(accountNumber))
-                .thenReturn(transactions);
+        when(transactionService.getTransactionsForAccount(accountNumber, null, 100))
+                .thenReturn(new TransactionPage(transactions, null));
 
    
         mockMvc.perform(get("/api/transactions/account/{number}", accountNumber))
@@ -273,6 +309,140 @@ class TransactionControllerTest {
                 .andExpect(jsonPath("$[2].sourceAccount").value("ACC001"))
                 .andExpect(jsonPath("$[2].destinationAccount").value("ACC002"));
 
-        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber);
+        verify(transactionService, times(1)).getTransactionsForAccount(accountNumber, null, 100);
+    }
+
+    @Test
+    void testDeposit_WithIdempotencyKey_RunsThroughExecutor() throws Exception {
+
+        when(idempotentExecutor.execute(eq("deposit"), eq("key-1"), anyString(), any())).thenReturn(testTransaction);
+
+
+        mockMvc.perform(post("/api/transactions/deposit")
+                .header("Idempotency-Key", "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"accountNumber\":\"ACC001\",\"amount\":1000.0}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.transactionId").value("TXN-12345"));
+
+        verify(idempotentExecutor).execute(eq("deposit"), eq("key-1"), eq("{accountNumber=ACC001, amount=1000.0}"), any());
+        verify(transactionService, never()).deposit(anyString(), anyDouble());
+    }
+
+    @Test
+    void testGetTransactions_MorePages_ReturnsCursorHeader() throws Exception {
+
+        when(transactionService.getTransactionsForAccount("ACC001", "2000:TXN-9", 1))
+                .thenReturn(new TransactionPage(List.of(testTransaction), "1000:TXN-12345"));
+
+
+        mockMvc.perform(get("/api/transactions/account/{number}", "ACC001")
+                .param("before", "2000:TXN-9")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", "1000:TXN-12345"))
+                .andExpect(jsonPath("$[0].transactionId").value("TXN-12345"));
+    }
+
+    @Test
+    void testGetTransaction_ReturnsCurrentStatus() throws Exception {
+
+        testTransaction.setStatus("PENDING");
+        when(transactionService.getTransaction("TXN-12345")).thenReturn(testTransaction);
+
+
+        mockMvc.perform(get("/api/transactions/{id}", "TXN-12345"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("PENDING"));
+    }
+
+    @Test
+    void testSummary_ReturnsTotals() throws Exception {
+
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 3, 31);
+        when(summaryService.getSummary("ACC001", from, to)).thenReturn(new AccountSummary("ACC001", from, to,
+                3, 1500.0, 1, 200.0, 0, 0.0, 2, 300.0, 1000.0, 2000.0, List.of()));
+
+
+        mockMvc.perform(get("/api/transactions/account/{number}/summary", "ACC001")
+                .param("from", "2026-01-01")
+                .param("to", "2026-03-31"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.depositCount").value(3))
+                .andExpect(jsonPath("$.transferOutTotal").value(300.0))
+                .andExpect(jsonPath("$.closingBalance").value(2000.0));
+    }
+
+    @Test
+    void testStatement_StreamsInRequestedFormat() throws Exception {
+
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 31);
+
+
+        mockMvc.perform(get("/api/transactions/account/{number}/statement", "ACC001")
+                .param("from", "2026-01-01")
+                .param("to", "2026-01-31")
+                .param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition",
+                        "attachment; filename=\"statement-ACC001-2026-01-01-2026-01-31.csv\""));
+
+        verify(statementService).write(eq("ACC001"), eq(from), eq(to), eq(StatementFormat.CSV), any());
+    }
+
+    @Test
+    void testExportStatement_ReturnsAcceptedJob() throws Exception {
+
+        LocalDate from = LocalDate.of(2025, 1, 1);
+        LocalDate to = LocalDate.of(2025, 12, 31);
+        StatementJob job = new StatementJob("stmt-1", "ACC001", from, to, "ndjson", Instant.now());
+        when(statementService.submit("ACC001", from, to, StatementFormat.NDJSON)).thenReturn(job);
+
+
+        mockMvc.perform(post("/api/transactions/account/{number}/statement/jobs", "ACC001")
+                .param("from", "2025-01-01")
+                .param("to", "2025-12-31"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/transactions/statements/stmt-1"))
+                .andExpect(jsonPath("$.status").value("QUEUED"))
+                .andExpect(jsonPath("$.file").doesNotExist());
+    }
+
+    @Test
+    void testStatementFile_CopiesReadyFile(@TempDir Path dir) throws Exception {
+
+        Path file = Files.writeString(dir.resolve("stmt-1.ndjson"), "{\"transactionId\":\"TXN-1\"}\n");
+        StatementJob job = new StatementJob("stmt-1", "ACC001", LocalDate.of(2025, 1, 1),
+                LocalDate.of(2025, 12, 31), "ndjson", Instant.now());
+        job.setStatus(StatementJob.Status.READY);
+        job.setFile(file);
+        when(statementService.readyJob("stmt-1")).thenReturn(job);
+
+
+        mockMvc.perform(get("/api/transactions/statements/{id}/file", "stmt-1"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"transactionId\":\"TXN-1\"}\n"));
+    }
+
+    @Test
+    void testBatch_ReturnsPerItemOutcomes() throws Exception {
+
+        List<Map<String, Object>> items = List.of(
+                Map.of("type", "DEPOSIT", "accountNumber", "ACC001", "amount", 100),
+                Map.of("type", "WITHDRAW", "accountNumber", "ACC001", "amount", 5000));
+        when(batchService.submit(items)).thenReturn(new BatchResult(1, 1, 0, List.of(
+                new BatchOutcome(0, "TXN-1", "SUCCESS", null),
+                new BatchOutcome(1, null, "REJECTED", "Insufficient funds"))));
+
+
+        mockMvc.perform(post("/api/transactions/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(items)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.succeeded").value(1))
+                .andExpect(jsonPath("$.results[1].error").value("Insufficient funds"));
     }
-}
\ No newline at end of file
+}
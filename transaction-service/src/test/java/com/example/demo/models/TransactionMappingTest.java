@@ -0,0 +1,131 @@
+package com.example.demo.models;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.MongoCustomConversions;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.convert.QueryMapper;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Criteria;
+
+import com.example.demo.repository.LegacyTransactionReader;
+
+public class TransactionMappingTest {
+
+    private MappingMongoConverter converter;
+    private MongoMappingContext context;
+
+    @BeforeEach
+    void setUp() {
+        MongoCustomConversions conversions = new MongoCustomConversions(List.of());
+        context = new MongoMappingContext();
+        context.setSimpleTypeHolder(conversions.getSimpleTypeHolder());
+        converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, context);
+        converter.setCustomConversions(conversions);
+        converter.afterPropertiesSet();
+    }
+
+    private Transaction transfer() {
+        Transaction t = new Transaction();
+        t.setTransactionId("TXN-1");
+        t.setType("TRANSFER");
+        t.setAmount(1234.56);
+        t.setTimestamp(Instant.parse("2024-01-01T00:00:00Z"));
+        t.setStatus("SUCCESS");
+        t.setSourceAccount("ACC001");
+        t.setDestinationAccount("ACC002");
+        return t;
+    }
+
+    @Test
+    void testWrite_UsesCompactLayout() {
+
+        Document doc = new Document();
+        converter.write(transfer(), doc);
+
+        assertEquals("TXN-1", doc.get("_id"));
+        assertEquals(3, doc.get("t"));
+        assertEquals(123456L, doc.get("a"));
+        assertEquals(1, doc.get("st"));
+        assertEquals("ACC001", doc.get("src"));
+        assertEquals("ACC002", doc.get("dst"));
+        assertFalse(doc.containsKey("transactionId"));
+        assertFalse(doc.containsKey("amount"));
+    }
+
+    @Test
+    void testRead_RoundTrips() {
+
+        Document doc = new Document();
+        converter.write(transfer(), doc);
+
+        Transaction read = converter.read(Transaction.class, doc);
+
+        assertEquals("TXN-1", read.getTransactionId());
+        assertEquals("TRANSFER", read.getType());
+        assertEquals(1234.56, read.getAmount());
+        assertEquals("SUCCESS", read.getStatus());
+        assertEquals("ACC002", read.getDestinationAccount());
+    }
+
+    @Test
+    void testRead_LegacyDocument() {
+
+        Document doc = new Document("_id", "65a0c0ffee")
+                .append("transactionId", "TXN-OLD")
+                .append("type", "DEPOSIT")
+                .append("amount", 500.25)
+                .append("timestamp", Date.from(Instant.parse("2023-06-01T00:00:00Z")))
+                .append("status", "SUCCESS")
+                .append("destinationAccount", "ACC001");
+
+        Transaction read = new LegacyTransactionReader()
+                .onAfterConvert(converter.read(Transaction.class, doc), doc, "transactions");
+
+        assertEquals("TXN-OLD", read.getTransactionId());
+        assertEquals("DEPOSIT", read.getType());
+        assertEquals(500.25, read.getAmount());
+        assertEquals(Instant.parse("2023-06-01T00:00:00Z"), read.getTimestamp());
+        assertEquals("ACC001", read.getDestinationAccount());
+    }
+
+    @Test
+    void testQuery_MapsToShortFieldsAndCodes() {
+
+        Document query = new QueryMapper(converter).getMappedObject(
+                Criteria.where("sourceAccount").is("ACC001").and("type").is("WITHDRAW").getCriteriaObject(),
+                context.getPersistentEntity(Transaction.class));
+
+        assertEquals("ACC001", query.get("src"));
+        assertEquals(2, query.get("t"));
+    }
+
+    @Test
+    void testRead_DailySummaryFromUpsertedDocument() {
+
+        Document doc = new Document("_id", "ACC001:2024-01-01")
+                .append("acct", "ACC001")
+                .append("day", "2024-01-01")
+                .append("depN", 2L)
+                .append("depT", 150050L)
+                .append("open", new Document("at", Date.from(Instant.parse("2024-01-01T09:00:00Z")))
+                        .append("txn", "TXN-1").append("b", 10000L));
+
+        DailySummary read = converter.read(DailySummary.class, doc);
+
+        assertEquals(2, read.getDepositCount());
+        assertEquals(1500.50, read.getDepositTotal());
+        assertEquals(0, read.getWithdrawCount());
+        assertEquals(100.0, read.getOpening().getBalance());
+        assertEquals("TXN-1", read.getOpening().getTransactionId());
+    }
+}
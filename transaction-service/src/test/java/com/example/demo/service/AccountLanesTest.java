@@ -0,0 +1,101 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccountLanesTest {
+
+    private SimpleMeterRegistry registry;
+    private AccountLanes lanes;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        lanes = new AccountLanes(8, 200, registry);
+        pool = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testRun_SameAccount_NeverOverlaps() throws Exception {
+
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+        Runnable op = () -> lanes.run("ACC001", () -> {
+            if (inside.incrementAndGet() > 1) overlaps.incrementAndGet();
+            Thread.yield();
+            return inside.decrementAndGet();
+        });
+
+
+        Future<?>[] futures = new Future<?>[200];
+        for (int i = 0; i < futures.length; i++) futures[i] = pool.submit(op);
+        for (Future<?> f : futures) f.get(5, TimeUnit.SECONDS);
+
+
+        assertEquals(0, overlaps.get());
+        assertEquals(200, registry.get("transactions.lanes.wait").timer().count());
+    }
+
+    @Test
+    void testRun_OppositeTransfers_DoNotDeadlock() throws Exception {
+
+        String a = "ACC001";
+        String b = "ACC002";
+        assertNotEquals(lanes.lane(a), lanes.lane(b));
+
+
+        Future<?>[] futures = new Future<?>[200];
+        for (int i = 0; i < futures.length; i++) {
+            boolean forward = i % 2 == 0;
+            futures[i] = pool.submit(() -> forward
+                    ? lanes.run(a, b, () -> lanes.run(a, () -> 1))
+                    : lanes.run(b, a, () -> lanes.run(b, () -> 1)));
+        }
+
+
+        for (Future<?> f : futures) assertEquals(1, f.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testRun_LaneHeldTooLong_TimesOut() throws Exception {
+
+        CountDownLatch held = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        pool.submit(() -> lanes.run("ACC001", () -> {
+            held.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException ex) {
+                return false;
+            }
+        }));
+        held.await(5, TimeUnit.SECONDS);
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> lanes.run("ACC001", () -> 1));
+
+
+        assertEquals(503, ex.getStatusCode().value());
+        release.countDown();
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.AccountSummary;
+import com.example.demo.models.BalancePoint;
+import com.example.demo.models.DailySummary;
+import com.example.demo.repository.DailySummaryRepository;
+
+@ExtendWith(MockitoExtension.class)
+class AccountSummaryServiceTest {
+
+    @Mock
+    private DailySummaryRepository repository;
+
+    private AccountSummaryService summaries;
+
+    @BeforeEach
+    void setUp() {
+        summaries = new AccountSummaryService(repository, 366);
+    }
+
+    private static BalancePoint point(String at, double balance) {
+        BalancePoint p = new BalancePoint();
+        p.setAt(Instant.parse(at));
+        p.setBalance(balance);
+        return p;
+    }
+
+    private static DailySummary day(String day, double deposits, double withdrawals, BalancePoint open, BalancePoint close) {
+        DailySummary d = new DailySummary();
+        d.setDay(day);
+        d.setDepositCount(1);
+        d.setDepositTotal(deposits);
+        d.setWithdrawCount(1);
+        d.setWithdrawTotal(withdrawals);
+        d.setOpening(open);
+        d.setClosing(close);
+        return d;
+    }
+
+    @Test
+    void testGetSummary_SumsDaysAndTakesOuterBalances() {
+
+        LocalDate from = LocalDate.of(2026, 1, 1);
+        LocalDate to = LocalDate.of(2026, 1, 31);
+        when(repository.findRange("ACC001", from, to)).thenReturn(List.of(
+                day("2026-01-02", 0.1, 0.0, point("2026-01-02T09:00:00Z", 500.0), point("2026-01-02T17:00:00Z", 500.1)),
+                day("2026-01-20", 0.2, 100.0, point("2026-01-20T09:00:00Z", 500.1), point("2026-01-20T17:00:00Z", 400.3))));
+
+
+        AccountSummary summary = summaries.getSummary("ACC001", from, to);
+
+
+        assertEquals(2, summary.depositCount());
+        assertEquals(0.3, summary.depositTotal());
+        assertEquals(100.0, summary.withdrawTotal());
+        assertEquals(500.0, summary.openingBalance());
+        assertEquals(400.3, summary.closingBalance());
+        assertEquals(2, summary.days().size());
+    }
+
+    @Test
+    void testGetSummary_RangeTooLong_Rejected() {
+
+        assertThrows(ResponseStatusException.class,
+                () -> summaries.getSummary("ACC001", LocalDate.of(2024, 1, 1), LocalDate.of(2025, 6, 1)));
+        assertThrows(ResponseStatusException.class,
+                () -> summaries.getSummary("ACC001", LocalDate.of(2026, 2, 1), LocalDate.of(2026, 1, 1)));
+
+        verify(repository, never()).findRange(anyString(), any(), any());
+    }
+}
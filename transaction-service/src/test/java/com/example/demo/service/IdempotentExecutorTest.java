@@ -0,0 +1,196 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.IdempotencyRecord;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.IdempotencyRepository;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotentExecutorTest {
+
+    @Mock
+    private IdempotencyRepository repo;
+
+    private IdempotentExecutor executor;
+    private Transaction deposit;
+
+    @BeforeEach
+    void setUp() {
+        executor = new IdempotentExecutor(repo, 5, 120, 600, 100);
+        deposit = new Transaction();
+        deposit.setTransactionId("TXN-1");
+        deposit.setType("DEPOSIT");
+        deposit.setStatus("SUCCESS");
+    }
+
+    @Test
+    void testReplay_ServedFromMemoryWithoutRunningAgain() {
+
+        AtomicInteger runs = new AtomicInteger();
+
+
+        Transaction first = executor.execute("deposit", "k1", "body", () -> { runs.incrementAndGet(); return deposit; });
+        Transaction second = executor.execute("deposit", "k1", "body", () -> { runs.incrementAndGet(); return deposit; });
+
+
+        assertSame(first, second);
+        assertEquals(1, runs.get());
+        verify(repo, times(1)).insert(any(IdempotencyRecord.class));
+    }
+
+    @Test
+    void testReplay_CompletedOnAnotherInstance_ReturnsStoredResult() {
+
+        when(repo.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(repo.findById("deposit:k1")).thenReturn(Optional.of(new IdempotencyRecord("deposit:k1", "body", Instant.now(), deposit, false)));
+
+
+        Transaction result = executor.execute("deposit", "k1", "body", () -> fail("must not run"));
+
+
+        assertSame(deposit, result);
+    }
+
+    @Test
+    void testDifferentRequestSameKey_Rejected() {
+
+        executor.execute("deposit", "k1", "body", () -> deposit);
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> executor.execute("deposit", "k1", "other body", () -> deposit));
+
+
+        assertEquals(422, ex.getStatusCode().value());
+    }
+
+    @Test
+    void testInFlightDuplicate_WaitsForFirstExecution() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger runs = new AtomicInteger();
+
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(() ->
+                executor.execute("deposit", "k1", "body", () -> {
+                    runs.incrementAndGet();
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return deposit;
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Transaction> second = CompletableFuture.supplyAsync(() ->
+                executor.execute("deposit", "k1", "body", () -> { runs.incrementAndGet(); return deposit; }));
+
+
+        release.countDown();
+
+
+        assertSame(first.get(5, TimeUnit.SECONDS), second.get(5, TimeUnit.SECONDS));
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void testFailure_ReleasesKey() {
+
+        assertThrows(IllegalArgumentException.class, () -> executor.execute("withdraw", "k2", "body",
+                () -> { throw new IllegalArgumentException("Insufficient funds"); }));
+
+
+        verify(repo).deleteById("withdraw:k2");
+        assertSame(deposit, executor.execute("withdraw", "k2", "body", () -> deposit));
+    }
+
+    @Test
+    void testFailureAfterApply_KeepsKeyAsUnknown() {
+
+        assertThrows(IllegalStateException.class, () -> executor.execute("deposit", "k4", "body",
+                () -> { throw new IllegalStateException("ledger write failed"); }));
+
+
+        verify(repo, never()).deleteById(anyString());
+        verify(repo).save(argThat(r -> r.getKey().equals("deposit:k4") && r.isOutcomeUnknown() && r.getResult() == null));
+    }
+
+    @Test
+    void testRetryAfterUnknownFailure_Rejected() {
+
+        when(repo.insert(any(IdempotencyRecord.class))).thenThrow(new DuplicateKeyException("dup"));
+        when(repo.findById("deposit:k4")).thenReturn(Optional.of(new IdempotencyRecord("deposit:k4", "body", Instant.now(), null, true)));
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> executor.execute("deposit", "k4", "body", () -> fail("must not run")));
+
+
+        assertEquals(409, ex.getStatusCode().value());
+        verify(repo, never()).takeOverStale(anyString(), any(), any());
+    }
+
+    @Test
+    void testInFlightDuplicate_DifferentRequest_RejectedWithoutWaiting() throws Exception {
+
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(() ->
+                executor.execute("deposit", "k1", "body", () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return deposit;
+                }));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> executor.execute("deposit", "k1", "other body", () -> fail("must not run")));
+        release.countDown();
+
+
+        assertEquals(422, ex.getStatusCode().value());
+        assertSame(deposit, first.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void testFailedWithUnknownOutcome_KeepsKey() {
+
+        Transaction timedOut = new Transaction();
+        timedOut.setStatus("FAILED");
+        timedOut.setOutcomeUnknown(true);
+        AtomicInteger runs = new AtomicInteger();
+
+
+        executor.execute("withdraw", "k3", "body", () -> { runs.incrementAndGet(); return timedOut; });
+        Transaction retried = executor.execute("withdraw", "k3", "body", () -> { runs.incrementAndGet(); return deposit; });
+
+
+        assertSame(timedOut, retried);
+        assertEquals(1, runs.get());
+        verify(repo, never()).deleteById(anyString());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.models.JournalEntry;
+import com.example.demo.models.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class JournalShipperTest {
+
+    @Mock
+    private TransactionLedger ledger;
+
+    @TempDir
+    Path dir;
+
+    private TransactionJournal journal;
+    private JournalShipper shipper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        journal = new TransactionJournal(new ObjectMapper().findAndRegisterModules(), true, dir.toString(), 1, registry);
+        journal.start();
+        shipper = new JournalShipper(journal, ledger, 2, 200, registry);
+    }
+
+    private static JournalEntry entry(String id) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setTimestamp(Instant.now());
+        return new JournalEntry(t, List.of());
+    }
+
+    @Test
+    void testShip_BatchesThenAcknowledges() throws Exception {
+
+        journal.append(List.of(entry("TXN-1"), entry("TXN-2"), entry("TXN-3")));
+
+
+        assertEquals(2, shipper.ship());
+        assertEquals(1, shipper.ship());
+        assertEquals(0, shipper.ship());
+
+
+        verify(ledger, times(2)).ship(anyList());
+        assertEquals(journal.durable(), journal.shipped());
+        assertEquals(0, journal.backlog());
+    }
+
+    @Test
+    void testShip_MongoDown_NothingAcknowledged() throws Exception {
+
+        journal.append(List.of(entry("TXN-1")));
+        doThrow(new IllegalStateException("down")).when(ledger).ship(anyList());
+
+
+        assertThrows(IllegalStateException.class, () -> shipper.ship());
+
+
+        assertTrue(journal.backlog() > 0);
+    }
+}
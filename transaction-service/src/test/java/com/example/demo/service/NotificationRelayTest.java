@@ -0,0 +1,92 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.clients.NotificationClient;
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.models.OutboxEntry;
+import com.example.demo.repository.OutboxRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class NotificationRelayTest {
+
+    @Mock
+    private OutboxRepository outbox;
+
+    @Mock
+    private NotificationClient notificationClient;
+
+    private NotificationRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        relay = new NotificationRelay(outbox, notificationClient, false, 10, 500, 30, 1000, 60000,
+                new SimpleMeterRegistry());
+    }
+
+    private static OutboxEntry entry(String id) {
+        Instant now = Instant.now();
+        return new OutboxEntry(id, "TXN-" + id, "Deposit of 100.0 completed.", "John Doe", now, now, 0, null, "claim");
+    }
+
+    @Test
+    void testDrain_BatchSentInOneRequestAndDeleted() {
+
+        List<OutboxEntry> batch = List.of(entry("1"), entry("2"));
+        when(outbox.claimDue(eq(10), any())).thenReturn(batch);
+
+
+        int claimed = relay.drain();
+
+
+        assertEquals(2, claimed);
+        verify(notificationClient, times(1)).sendNotifications(argThat(payloads -> payloads.size() == 2));
+        verify(notificationClient, never()).sendNotification(any(NotificationPayload.class));
+        verify(outbox).deleteAll(batch);
+    }
+
+    @Test
+    void testDrain_Failure_BacksOffWholeBatch() {
+
+        OutboxEntry first = entry("1");
+        OutboxEntry second = entry("2");
+        second.setAttempts(2);
+        when(outbox.claimDue(eq(10), any())).thenReturn(List.of(first, second));
+        doThrow(new RuntimeException("notification-service down"))
+                .when(notificationClient).sendNotifications(anyList());
+
+
+        int claimed = relay.drain();
+
+
+        assertEquals(0, claimed);
+        verify(outbox, never()).deleteAll(anyList());
+        verify(outbox).saveAll(List.of(first, second));
+        assertEquals(1, first.getAttempts());
+        assertEquals(3, second.getAttempts());
+        assertEquals("notification-service down", first.getLastError());
+        assertNull(first.getClaim());
+        assertTrue(second.getNextAttemptAt().isAfter(first.getNextAttemptAt()));
+    }
+
+    @Test
+    void testBackoff_DoublesUpToMaximum() {
+
+        assertEquals(1000, relay.backoff(1));
+        assertEquals(4000, relay.backoff(3));
+        assertEquals(60000, relay.backoff(30));
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.models.Transaction;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class PendingReplayerTest {
+
+    @Mock
+    private PendingQueue queue;
+
+    @Mock
+    private TransactionService service;
+
+    private CircuitBreakerRegistry breakers;
+    private PendingReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        breakers = CircuitBreakerRegistry.ofDefaults();
+        replayer = new PendingReplayer(queue, service, breakers, 10);
+    }
+
+    private static Transaction pending(String id, String from, String to) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setType(from == null ? "DEPOSIT" : to == null ? "WITHDRAW" : "TRANSFER");
+        t.setAmount(100.0);
+        t.setStatus("PENDING");
+        t.setSourceAccount(from);
+        t.setDestinationAccount(to);
+        return t;
+    }
+
+    private static Transaction settled(Transaction t) {
+        Transaction done = pending(t.getTransactionId(), t.getSourceAccount(), t.getDestinationAccount());
+        done.setStatus("SUCCESS");
+        return done;
+    }
+
+    @Test
+    void testReplay_KeepsAccountOrderBehindHeldEntries() {
+
+        Transaction first = pending("TXN-1", null, "ACC001");
+        Transaction held = pending("TXN-2", "ACC002", null);
+        Transaction behindHeld = pending("TXN-3", "ACC002", "ACC001");
+        Transaction last = pending("TXN-4", "ACC001", null);
+        when(queue.due(10)).thenReturn(List.of(first, held, behindHeld, last));
+        when(queue.claim(first)).thenReturn(true);
+        when(queue.claim(held)).thenReturn(false);
+        when(service.settle(first)).thenReturn(settled(first));
+
+
+        int settled = replayer.replay();
+
+
+        // TXN-3 waits behind TXN-2 on ACC002, and TXN-4 behind TXN-3 on ACC001
+        assertEquals(1, settled);
+        verify(service).settle(first);
+        verify(service, never()).settle(behindHeld);
+        verify(service, never()).settle(last);
+    }
+
+    @Test
+    void testReplay_LeaseLostDuringSettle_HoldsAccount() {
+
+        Transaction first = pending("TXN-1", null, "ACC001");
+        Transaction behind = pending("TXN-2", "ACC001", null);
+        when(queue.due(10)).thenReturn(List.of(first, behind));
+        when(queue.claim(first)).thenReturn(true);
+        when(service.settle(first)).thenReturn(first);
+
+
+        int settled = replayer.replay();
+
+
+        assertEquals(0, settled);
+        verify(service, never()).settle(behind);
+    }
+
+    @Test
+    void testReplay_UnknownOutcome_CountedAsBreakerFailure() {
+
+        Transaction first = pending("TXN-1", null, "ACC001");
+        Transaction behind = pending("TXN-2", "ACC001", null);
+        when(queue.due(10)).thenReturn(List.of(first, behind));
+        when(queue.claim(first)).thenReturn(true);
+        when(service.settle(first)).thenThrow(new IllegalStateException("Read timed out"));
+
+
+        int settled = replayer.replay();
+
+
+        assertEquals(0, settled);
+        assertEquals(1, breakers.circuitBreaker("accountServiceCB").getMetrics().getNumberOfFailedCalls());
+        verify(service, never()).settle(behind);
+    }
+
+    @Test
+    void testReplay_StopsWhenCallsAreRejected() {
+
+        Transaction first = pending("TXN-1", null, "ACC001");
+        Transaction second = pending("TXN-2", null, "ACC002");
+        when(queue.due(10)).thenReturn(List.of(first, second));
+        when(queue.claim(first)).thenReturn(true);
+        when(service.settle(first)).thenThrow(
+                CallNotPermittedException.createCallNotPermittedException(breakers.circuitBreaker("accountServiceCB")));
+
+
+        assertEquals(0, replayer.replay());
+
+
+        verify(queue, never()).claim(second);
+    }
+
+    @Test
+    void testReplay_BreakerOpen_DoesNothing() {
+
+        breakers.circuitBreaker("accountServiceCB").transitionToOpenState();
+
+
+        assertEquals(0, replayer.replay());
+
+
+        verifyNoInteractions(queue, service);
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.clients.AccountClient;
+import com.example.demo.clients.AccountDTO;
+import com.example.demo.clients.AccountPageDTO;
+import com.example.demo.models.Discrepancy;
+import com.example.demo.models.ReconciliationRun;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.ReconciliationRunRepository;
+import com.example.demo.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ReconciliationServiceTest {
+
+    @Mock
+    private TransactionRepository txnRepo;
+
+    @Mock
+    private ReconciliationRunRepository runs;
+
+    @Mock
+    private AccountClient accountClient;
+
+    @TempDir
+    Path dir;
+
+    private ReconciliationService reconciliation;
+
+    private static final Instant READ_AT = Instant.parse("2026-03-01T12:00:00Z");
+
+    @BeforeEach
+    void setUp() throws Exception {
+        reconciliation = new ReconciliationService(txnRepo, runs, accountClient, new ObjectMapper(), dir.toString(),
+                1000, 1000, 2, 0, 30, new SimpleMeterRegistry());
+        reconciliation.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        reconciliation.shutdown();
+    }
+
+    private static Transaction txn(String id, String day, String src, Double sb, String dst, Double db, double amount) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setTimestamp(Instant.parse(day));
+        t.setAmount(amount);
+        t.setSourceAccount(src);
+        t.setSourceBalance(sb);
+        t.setDestinationAccount(dst);
+        t.setDestinationBalance(db);
+        return t;
+    }
+
+    // ACC001 is consistent, ACC002 recorded 40 where 50 was implied and has 10 more than its
+    // ledger, ACC003 moved just before its balance was read, ACC0025 is not on the page
+    private void stubPartition() {
+        Transaction t1 = txn("TXN-1", "2026-01-01T00:00:00Z", null, null, "ACC001", 100.0, 100);
+        Transaction t2 = txn("TXN-2", "2026-01-02T00:00:00Z", null, null, "ACC002", 40.0, 50);
+        Transaction t3 = txn("TXN-3", "2026-01-03T00:00:00Z", "ACC001", 80.0, "ACC002", 70.0, 20);
+        Transaction t4 = txn("TXN-4", "2026-01-04T00:00:00Z", null, null, "ACC001", 150.0, 70);
+        Transaction t5 = txn("TXN-5", "2026-03-01T11:59:59Z", null, null, "ACC003", 5.0, 5);
+        Transaction t6 = txn("TXN-6", "2026-01-05T00:00:00Z", "ACC0025", 0.0, null, null, 10);
+        when(txnRepo.streamSettled(true, "ACC001", "ACC003", 1000)).thenReturn(Stream.of(t3, t6));
+        when(txnRepo.streamSettled(false, "ACC001", "ACC003", 1000)).thenReturn(Stream.of(t4, t1, t3, t2, t5));
+    }
+
+    private static List<AccountDTO> page() {
+        return List.of(new AccountDTO("1", "ACC001", "A", 150.0),
+                new AccountDTO("2", "ACC002", "B", 80.0),
+                new AccountDTO("3", "ACC003", "C", 5.0));
+    }
+
+    @Test
+    void testReconcile_ReportsBalanceAndHistoryDrift() {
+
+        stubPartition();
+
+
+        ReconciliationService.PartitionResult result = reconciliation.reconcile(page(), READ_AT);
+
+
+        assertEquals("ACC003", result.last());
+        assertEquals(2, result.checked());
+        assertEquals(1, result.skipped());
+        assertEquals(7, result.scanned());
+        assertEquals(List.of(new Discrepancy("ACC002", 80.0, 70.0, 10.0, "TXN-2", 2)), result.discrepancies());
+    }
+
+    @Test
+    void testStartRun_WritesReportAndCheckpoint() throws Exception {
+
+        stubPartition();
+        when(accountClient.listAccounts(null, 1000)).thenReturn(new AccountPageDTO(page(), null));
+
+
+        ReconciliationRun run = reconciliation.startRun();
+
+
+        verify(runs, timeout(5000).times(3)).save(run);
+        lenient().when(runs.findById(run.getId())).thenReturn(Optional.of(run));
+        assertEquals(ReconciliationRun.Status.COMPLETED, run.getStatus());
+        assertEquals("ACC003", run.getCheckpoint());
+        assertEquals(1, run.getDiscrepancies());
+        List<String> lines = Files.readAllLines(reconciliation.report(run.getId()), StandardCharsets.UTF_8);
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).contains("\"accountNumber\":\"ACC002\""));
+        assertEquals(Files.size(reconciliation.report(run.getId())), run.getReportBytes());
+    }
+
+    @Test
+    void testResumeRun_Completed_ThrowsConflict() {
+
+        ReconciliationRun done = new ReconciliationRun();
+        done.setId("recon-1");
+        done.setStatus(ReconciliationRun.Status.COMPLETED);
+        when(runs.findById("recon-1")).thenReturn(Optional.of(done));
+
+
+        ResponseStatusException ex = assertThrows(ResponseStatusException.class,
+                () -> reconciliation.resumeRun("recon-1"));
+
+
+        assertEquals(409, ex.getStatusCode().value());
+        verify(runs, never()).save(any());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class SnowflakeIdGeneratorTest {
+
+    @Test
+    void testNext_FixedWidthAndStrictlyIncreasing() {
+
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(7, "10.0.0.5");
+
+
+        List<String> generated = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) generated.add(ids.next());
+
+
+        for (int i = 1; i < generated.size(); i++) {
+            assertEquals(17, generated.get(i).length());
+            assertTrue(generated.get(i).startsWith("TXN-"));
+            assertTrue(generated.get(i).compareTo(generated.get(i - 1)) > 0, generated.get(i));
+        }
+    }
+
+    @Test
+    void testNext_UniqueAcrossThreads() throws Exception {
+
+        SnowflakeIdGenerator ids = new SnowflakeIdGenerator(7, "10.0.0.5");
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < 4; t++)
+            futures.add(pool.submit(() -> { for (int i = 0; i < 20_000; i++) seen.add(ids.next()); }));
+        for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+        pool.shutdown();
+
+
+        assertEquals(80_000, seen.size());
+    }
+
+    @Test
+    void testFormat_Base32OfTimestampNodeAndSequence() {
+
+        long id = 5L << (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS)
+                | 1023L << SnowflakeIdGenerator.SEQUENCE_BITS
+                | 3;
+
+
+        String formatted = SnowflakeIdGenerator.format(id);
+
+
+        assertEquals("TXN-00000000QZW03", formatted);
+    }
+
+    @Test
+    void testNode_DerivedFromLowBitsOfAddress() {
+
+        long first = new SnowflakeIdGenerator(-1, "172.18.0.5").node();
+        long second = new SnowflakeIdGenerator(-1, "172.18.1.6").node();
+
+
+        assertEquals(5, first);
+        assertEquals(256 + 6, second);
+        assertThrows(IllegalStateException.class, () -> new SnowflakeIdGenerator(-1, ""));
+    }
+}
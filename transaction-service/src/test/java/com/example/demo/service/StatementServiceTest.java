@@ -0,0 +1,113 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.example.demo.models.StatementJob;
+import com.example.demo.models.Transaction;
+import com.example.demo.repository.TransactionRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class StatementServiceTest {
+
+    @Mock
+    private TransactionRepository txnRepo;
+
+    @TempDir
+    Path dir;
+
+    private StatementService statements;
+
+    private static final LocalDate FROM = LocalDate.of(2026, 1, 1);
+    private static final LocalDate TO = LocalDate.of(2026, 1, 31);
+
+    @BeforeEach
+    void setUp() {
+        statements = new StatementService(txnRepo, new ObjectMapper().findAndRegisterModules(), dir.toString(), 500, 92, 60, 1, 4,
+                new SimpleMeterRegistry());
+    }
+
+    private static Transaction transfer(String id) {
+        Transaction txn = new Transaction();
+        txn.setTransactionId(id);
+        txn.setType("TRANSFER");
+        txn.setAmount(25.5);
+        txn.setTimestamp(Instant.parse("2026-01-15T10:00:00Z"));
+        txn.setStatus("SUCCESS");
+        txn.setSourceAccount("ACC001");
+        txn.setDestinationAccount("ACC002");
+        return txn;
+    }
+
+    @Test
+    void testWrite_Csv_StreamsRowsForUtcDayRange() throws Exception {
+
+        when(txnRepo.streamStatement("ACC001", Instant.parse("2026-01-01T00:00:00Z"),
+                Instant.parse("2026-02-01T00:00:00Z"), 500))
+                .thenReturn(Stream.of(transfer("TXN-1"), transfer("TXN-2")));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+
+        statements.write("ACC001", FROM, TO, StatementFormat.CSV, out);
+
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("transactionId,timestamp,type,amount,status,sourceAccount,destinationAccount", lines[0]);
+        assertEquals("TXN-1,2026-01-15T10:00:00Z,TRANSFER,25.5,SUCCESS,ACC001,ACC002", lines[1]);
+    }
+
+    @Test
+    void testWrite_RangeTooLong_ThrowsException() {
+
+        assertThrows(ResponseStatusException.class,
+                () -> statements.write("ACC001", FROM, FROM.plusYears(1), StatementFormat.NDJSON,
+                        new ByteArrayOutputStream()));
+
+        verify(txnRepo, never()).streamStatement(anyString(), any(), any(), anyInt());
+    }
+
+    @Test
+    void testSubmit_WritesFileAndExpiresIt() throws Exception {
+
+        when(txnRepo.streamStatement(eq("ACC001"), any(), any(), eq(500)))
+                .thenReturn(Stream.of(transfer("TXN-1")));
+
+
+        StatementJob job = statements.submit("ACC001", FROM, TO, StatementFormat.NDJSON);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (job.getExpiresAt() == null && System.currentTimeMillis() < deadline) Thread.sleep(10);
+
+
+        assertEquals(StatementJob.Status.READY, job.getStatus());
+        assertEquals(1, job.getRows());
+        assertEquals(dir.resolve(job.getId() + ".ndjson"), job.getFile());
+        assertTrue(Files.readString(job.getFile()).contains("\"TXN-1\""));
+        assertSame(job, statements.readyJob(job.getId()));
+
+        statements.expire(job.getExpiresAt().plusSeconds(1));
+
+        assertFalse(Files.exists(job.getFile()));
+        assertThrows(ResponseStatusException.class, () -> statements.getJob(job.getId()));
+    }
+}
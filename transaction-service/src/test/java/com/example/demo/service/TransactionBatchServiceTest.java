@@ -0,0 +1,149 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.net.ConnectException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.example.demo.clients.AccountClient;
+import com.example.demo.clients.AccountDTO;
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.clients.PostingResultDTO;
+import com.example.demo.models.BatchResult;
+import com.example.demo.models.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionBatchServiceTest {
+
+    @Mock
+    private AccountClient accountClient;
+
+    @Mock
+    private TransactionLedger ledger;
+
+    private TransactionBatchService batches;
+
+    @BeforeEach
+    void setUp() {
+        batches = new TransactionBatchService(accountClient, ledger, new ObjectMapper(),
+                new SnowflakeIdGenerator(1, "transaction-service:8082"), 10, 2);
+    }
+
+    private static AccountDTO account(String number, String holder) {
+        AccountDTO acc = new AccountDTO();
+        acc.setAccountNumber(number);
+        acc.setHolderName(holder);
+        return acc;
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSubmit_ChunkedIntoOnePostingCallEach() {
+
+        when(accountClient.applyPostings(anyList()))
+                .thenReturn(new PostingResultDTO(Arrays.asList(null, "Insufficient funds"),
+                        List.of(account("ACC001", "John Doe"))))
+                .thenReturn(new PostingResultDTO(Arrays.asList((String) null),
+                        List.of(account("ACC001", "John Doe"), account("ACC002", "Jane Doe"))));
+
+
+        BatchResult result = batches.submit(List.of(
+                Map.of("type", "deposit", "accountNumber", "ACC001", "amount", 100),
+                Map.of("type", "WITHDRAW", "accountNumber", "ACC001", "amount", 5000),
+                Map.of("type", "REFUND", "accountNumber", "ACC001", "amount", 1),
+                Map.of("type", "TRANSFER", "fromAccount", "ACC001", "toAccount", "ACC002", "amount", 50)));
+
+
+        assertEquals(2, result.succeeded());
+        assertEquals(2, result.rejected());
+        assertEquals(0, result.failed());
+        assertEquals("Insufficient funds", result.results().get(1).error());
+        assertEquals("Invalid operation", result.results().get(2).error());
+        assertEquals(3, result.results().get(3).index());
+        verify(accountClient, times(2)).applyPostings(anyList());
+
+        ArgumentCaptor<List<Transaction>> recorded = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<NotificationPayload>> notified = ArgumentCaptor.forClass(List.class);
+        verify(ledger, times(2)).recordAll(recorded.capture(), notified.capture());
+        Transaction transfer = recorded.getAllValues().get(1).get(0);
+        assertEquals("TRANSFER", transfer.getType());
+        assertEquals("ACC001", transfer.getSourceAccount());
+        assertEquals("ACC002", transfer.getDestinationAccount());
+        assertEquals("SUCCESS", transfer.getStatus());
+        assertEquals("Jane Doe", notified.getAllValues().get(1).get(1).getTo());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSubmit_AccountServiceDown_RecordsFailed() {
+
+        when(accountClient.applyPostings(anyList())).thenThrow(new RetryableException(-1, "Connection refused",
+                Request.HttpMethod.POST, new ConnectException("Connection refused"), (Long) null,
+                Request.create(Request.HttpMethod.POST, "/accounts/postings", Map.of(), null, StandardCharsets.UTF_8, null)));
+
+
+        BatchResult result = batches.submit(List.of(Map.of("type", "DEPOSIT", "accountNumber", "ACC001", "amount", 100)));
+
+
+        assertEquals(1, result.failed());
+        assertEquals("FAILED", result.results().get(0).status());
+        assertEquals("Account service unavailable", result.results().get(0).error());
+        ArgumentCaptor<List<Transaction>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(ledger).recordAll(recorded.capture(), eq(List.of()));
+        assertEquals("FAILED", recorded.getValue().get(0).getStatus());
+        assertFalse(recorded.getValue().get(0).isOutcomeUnknown());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSubmit_ServerError_ReportsUnknownOutcome() {
+
+        when(accountClient.applyPostings(anyList())).thenThrow(FeignException.ServiceUnavailable.class);
+
+
+        BatchResult result = batches.submit(List.of(Map.of("type", "DEPOSIT", "accountNumber", "ACC001", "amount", 100)));
+
+
+        assertEquals(1, result.failed());
+        assertTrue(result.results().get(0).error().startsWith("Outcome unknown"));
+        ArgumentCaptor<List<Transaction>> recorded = ArgumentCaptor.forClass(List.class);
+        verify(ledger).recordAll(recorded.capture(), eq(List.of()));
+        assertTrue(recorded.getValue().get(0).isOutcomeUnknown());
+    }
+
+    @Test
+    void testSubmitNdjson_MalformedLineRejected() throws Exception {
+
+        when(accountClient.applyPostings(anyList()))
+                .thenReturn(new PostingResultDTO(Arrays.asList((String) null), List.of(account("ACC001", "John Doe"))));
+        BufferedReader in = new BufferedReader(new StringReader(
+                "{\"type\":\"DEPOSIT\",\"accountNumber\":\"ACC001\",\"amount\":10}\n\nnot json\n"));
+
+
+        BatchResult result = batches.submitNdjson(in);
+
+
+        assertEquals(1, result.succeeded());
+        assertEquals(1, result.rejected());
+        assertEquals(2, result.results().size());
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.demo.service;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.example.demo.clients.NotificationPayload;
+import com.example.demo.models.JournalEntry;
+import com.example.demo.models.Transaction;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class TransactionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private SimpleMeterRegistry registry;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+    }
+
+    private TransactionJournal open(int segmentSizeMb) throws Exception {
+        TransactionJournal journal = new TransactionJournal(new ObjectMapper().findAndRegisterModules(), true,
+                dir.toString(), segmentSizeMb, registry);
+        journal.start();
+        return journal;
+    }
+
+    private static JournalEntry entry(String id) {
+        Transaction t = new Transaction();
+        t.setTransactionId(id);
+        t.setType("DEPOSIT");
+        t.setAmount(100.0);
+        t.setTimestamp(Instant.parse("2026-01-15T10:00:00Z"));
+        t.setStatus("SUCCESS");
+        t.setDestinationAccount("ACC001");
+        return new JournalEntry(t, List.of(new NotificationPayload(id, "Deposit of 100.0 completed.", "John Doe")));
+    }
+
+    @Test
+    void testAppend_ReadBackAfterRestart() throws Exception {
+
+        TransactionJournal journal = open(1);
+        journal.append(List.of(entry("TXN-1"), entry("TXN-2")));
+        journal.append(List.of(entry("TXN-3")));
+
+
+        TransactionJournal reopened = open(1);
+        TransactionJournal.Batch batch = reopened.read(reopened.shipped(), 10);
+
+
+        assertEquals(3, batch.entries().size());
+        assertEquals("TXN-3", batch.entries().get(2).transaction().getTransactionId());
+        assertEquals("John Doe", batch.entries().get(0).notifications().get(0).getTo());
+        assertEquals(reopened.durable(), batch.next());
+    }
+
+    @Test
+    void testAcknowledge_CheckpointSurvivesRestartAndDropsSegments() throws Exception {
+
+        TransactionJournal journal = open(1);
+        // ~300 bytes per record, so a 1 MB segment rotates after a few thousand
+        List<JournalEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 8000; i++) entries.add(entry("TXN-" + i));
+        journal.append(entries);
+        long segments;
+        try (var files = Files.list(dir)) {
+            segments = files.filter(f -> f.toString().endsWith(".log")).count();
+        }
+        assertTrue(segments > 1);
+
+
+        TransactionJournal.Batch first = journal.read(journal.shipped(), 7990);
+        journal.acknowledge(first.next());
+        TransactionJournal reopened = open(1);
+        TransactionJournal.Batch rest = reopened.read(reopened.shipped(), 100);
+
+
+        assertEquals(10, rest.entries().size());
+        assertEquals("TXN-7990", rest.entries().get(0).transaction().getTransactionId());
+        try (var files = Files.list(dir)) {
+            assertEquals(1, files.filter(f -> f.toString().endsWith(".log")).count());
+        }
+    }
+
+    @Test
+    void testAppend_ConcurrentAppendsShareFsyncs() throws Exception {
+
+        TransactionJournal journal = open(4);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 400; i++) {
+            String id = "TXN-" + i;
+            futures.add(pool.submit(() -> journal.append(List.of(entry(id)))));
+        }
+        for (Future<?> f : futures) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+
+        assertEquals(400, journal.read(journal.shipped(), 1000).entries().size());
+        assertEquals(400, registry.get("transactions.journal.appends").functionCounter().count());
+        assertTrue(registry.get("transactions.journal.fsyncs").functionCounter().count() <= 400);
+    }
+}
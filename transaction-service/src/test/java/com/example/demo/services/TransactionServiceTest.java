@@ -4,25 +4,42 @@ import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
 import java.time.Instant;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import org.springframework.web.server.ResponseStatusException;
+
 import com.example.demo.clients.AccountClient;
 import com.example.demo.clients.AccountDTO;
-import com.example.demo.clients.NotificationClient;
 import com.example.demo.clients.NotificationPayload;
+import com.example.demo.clients.TransferResultDTO;
 import com.example.demo.models.Transaction;
+import com.example.demo.models.TransactionPage;
 import com.example.demo.repository.TransactionRepository;
+import com.example.demo.service.AccountLanes;
+import com.example.demo.service.PendingQueue;
+import com.example.demo.service.SnowflakeIdGenerator;
+import com.example.demo.service.TransactionIdGenerator;
+import com.example.demo.service.TransactionLedger;
 import com.example.demo.service.TransactionService;
 
+import feign.FeignException;
+import feign.Request;
+import feign.RetryableException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
 
@@ -33,7 +50,16 @@ class TransactionServiceTest {
     private AccountClient accountClient;
 
     @Mock
-    private NotificationClient notificationClient;
+    private TransactionLedger ledger;
+
+    @Spy
+    private AccountLanes lanes = new AccountLanes(4, 1000, new SimpleMeterRegistry());
+
+    @Spy
+    private TransactionIdGenerator ids = new SnowflakeIdGenerator(1, "transaction-service:8082");
+
+    @Mock
+    private PendingQueue pending;
 
     @InjectMocks
     private TransactionService transactionService;
@@ -59,53 +85,58 @@ class TransactionServiceTest {
     }
 
     @Test
-    void testGetTransactionsForAccount_Success() {
+    void testGetTransactionsForAccount_FirstPage_ReturnsCursor() {
 
         String accountNumber = "ACC001";
-        List<Transaction> expectedTransactions = Arrays.asList(testTransaction);
-        when(txnRepo.findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-                accountNumber, accountNumber)).thenReturn(expectedTransactions);
+        Transaction older = new Transaction();
+        older.setTransactionId("TXN-older");
+        older.setTimestamp(Instant.ofEpochMilli(1000));
+        testTransaction.setTimestamp(Instant.ofEpochMilli(2000));
+        when(txnRepo.findHistory(accountNumber, null, null, 2))
+                .thenReturn(Arrays.asList(testTransaction, older));
 
 
-        List<Transaction> result = transactionService.getTransactionsForAccount(accountNumber);
+        TransactionPage result = transactionService.getTransactionsForAccount(accountNumber, null, 1);
 
 
-        assertNotNull(result);
-        assertEquals(1, result.size());
-        assertEquals(testTransaction, result.get(0));
-        verify(txnRepo, times(1)).findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-                accountNumber, accountNumber);
+        assertEquals(1, result.transactions().size());
+        assertEquals(testTransaction, result.transactions().get(0));
+        assertEquals("2000:TXN-uuid", result.next());
     }
 
     @Test
-    void testGetTransactionsForAccount_EmptyList() {
+    void testGetTransactionsForAccount_WithCursor_LastPage() {
 
         String accountNumber = "ACC002";
-        when(txnRepo.findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-                accountNumber, accountNumber)).thenReturn(Arrays.asList());
+        when(txnRepo.findHistory(accountNumber, Instant.ofEpochMilli(2000), "TXN-uuid", 101))
+                .thenReturn(Arrays.asList());
 
 
-        List<Transaction> result = transactionService.getTransactionsForAccount(accountNumber);
+        TransactionPage result = transactionService.getTransactionsForAccount(accountNumber, "2000:TXN-uuid", 100);
 
 
         assertNotNull(result);
-        assertEquals(0, result.size());
-        verify(txnRepo, times(1)).findBySourceAccountOrDestinationAccountOrderByTimestampDesc(
-                accountNumber, accountNumber);
+        assertEquals(0, result.transactions().size());
+        assertNull(result.next());
     }
 
+    @Test
+    void testGetTransactionsForAccount_InvalidCursor_ThrowsException() {
 
+        assertThrows(ResponseStatusException.class,
+                () -> transactionService.getTransactionsForAccount("ACC001", "not-a-cursor", 100));
+
+        verify(txnRepo, never()).findHistory(anyString(), any(), any(), anyInt());
+    }
 
     @Test
     void testDeposit_Success() {
 
         String accountNumber = "ACC001";
         double depositAmount = 1000.0;
-        double expectedNewBalance = 6000.0;
 
-        when(accountClient.getAccount(accountNumber)).thenReturn(testAccount);
-        when(accountClient.updateBalance(eq(accountNumber), anyMap())).thenReturn(testAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.applyBalanceDelta(eq(accountNumber), anyMap())).thenReturn(testAccount);
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
 
         Transaction result = transactionService.deposit(accountNumber, depositAmount);
@@ -119,12 +150,13 @@ class TransactionServiceTest {
         assertTrue(result.getTransactionId().startsWith("TXN-"));
 
 
-        verify(accountClient, times(1)).getAccount(accountNumber);
-        verify(accountClient, times(1)).updateBalance(eq(accountNumber), argThat(map ->
-                map.get("balance").equals(expectedNewBalance)
+        verify(accountClient, times(1)).applyBalanceDelta(eq(accountNumber), argThat(map ->
+                map.get("amount").equals(depositAmount) && !map.containsKey("requireNonNegative")
         ));
-        verify(txnRepo, times(1)).save(any(Transaction.class));
-        verify(notificationClient, times(1)).sendNotification(any(NotificationPayload.class));
+        verify(accountClient, never()).getAccount(anyString());
+        verify(accountClient, never()).updateBalance(anyString(), anyMap());
+        verify(ledger, times(1)).record(any(Transaction.class), anyList());
+        verify(ledger).record(any(Transaction.class), argThat(notifications -> notifications.size() == 1));
     }
 
     @Test
@@ -140,9 +172,8 @@ class TransactionServiceTest {
         );
 
         assertEquals("Amount must be positive", exception.getMessage());
-        verify(accountClient, never()).getAccount(anyString());
-        verify(txnRepo, never()).save(any(Transaction.class));
-        verify(notificationClient, never()).sendNotification(any(NotificationPayload.class));
+        verify(accountClient, never()).applyBalanceDelta(anyString(), anyMap());
+        verify(ledger, never()).record(any(Transaction.class), anyList());
     }
 
     @Test
@@ -158,7 +189,7 @@ class TransactionServiceTest {
         );
 
         assertEquals("Amount must be positive", exception.getMessage());
-        verify(accountClient, never()).getAccount(anyString());
+        verify(accountClient, never()).applyBalanceDelta(anyString(), anyMap());
     }
 
     @Test
@@ -167,18 +198,18 @@ class TransactionServiceTest {
         String accountNumber = "ACC001";
         double depositAmount = 1000.0;
 
-        when(accountClient.getAccount(accountNumber)).thenReturn(testAccount);
-        when(accountClient.updateBalance(eq(accountNumber), anyMap())).thenReturn(testAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.applyBalanceDelta(eq(accountNumber), anyMap())).thenReturn(testAccount);
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
-        ArgumentCaptor<NotificationPayload> captor = ArgumentCaptor.forClass(NotificationPayload.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationPayload>> captor = ArgumentCaptor.forClass(List.class);
 
 
         transactionService.deposit(accountNumber, depositAmount);
 
 
-        verify(notificationClient).sendNotification(captor.capture());
-        NotificationPayload payload = captor.getValue();
+        verify(ledger).record(any(Transaction.class), captor.capture());
+        NotificationPayload payload = captor.getValue().get(0);
         assertNotNull(payload);
         assertTrue(payload.getMessage().contains("Deposit"));
         assertTrue(payload.getMessage().contains(String.valueOf(depositAmount)));
@@ -192,11 +223,9 @@ class TransactionServiceTest {
 
         String accountNumber = "ACC001";
         double withdrawAmount = 1000.0;
-        double expectedNewBalance = 4000.0;
 
-        when(accountClient.getAccount(accountNumber)).thenReturn(testAccount);
-        when(accountClient.updateBalance(eq(accountNumber), anyMap())).thenReturn(testAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.applyBalanceDelta(eq(accountNumber), anyMap())).thenReturn(testAccount);
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
 
         Transaction result = transactionService.withdraw(accountNumber, withdrawAmount);
@@ -207,12 +236,12 @@ class TransactionServiceTest {
         assertEquals(withdrawAmount, result.getAmount());
         assertEquals("SUCCESS", result.getStatus());
 
-        verify(accountClient, times(1)).getAccount(accountNumber);
-        verify(accountClient, times(1)).updateBalance(eq(accountNumber), argThat(map ->
-                map.get("balance").equals(expectedNewBalance)
+        verify(accountClient, times(1)).applyBalanceDelta(eq(accountNumber), argThat(map ->
+                map.get("amount").equals(-withdrawAmount) && map.get("requireNonNegative").equals(true)
         ));
-        verify(txnRepo, times(1)).save(any(Transaction.class));
-        verify(notificationClient, times(1)).sendNotification(any(NotificationPayload.class));
+        verify(accountClient, never()).getAccount(anyString());
+        verify(ledger, times(1)).record(any(Transaction.class), anyList());
+        verify(ledger).record(any(Transaction.class), argThat(notifications -> notifications.size() == 1));
     }
 
     @Test
@@ -221,7 +250,8 @@ class TransactionServiceTest {
         String accountNumber = "ACC001";
         double withdrawAmount = 10000.0; 
 
-        when(accountClient.getAccount(accountNumber)).thenReturn(testAccount);
+        when(accountClient.applyBalanceDelta(eq(accountNumber), anyMap()))
+                .thenThrow(mock(FeignException.Conflict.class));
 
  
         IllegalArgumentException exception = assertThrows(
@@ -230,10 +260,8 @@ class TransactionServiceTest {
         );
 
         assertEquals("Insufficient funds", exception.getMessage());
-        verify(accountClient, times(1)).getAccount(accountNumber);
-        verify(accountClient, never()).updateBalance(anyString(), anyMap());
-        verify(txnRepo, never()).save(any(Transaction.class));
-        verify(notificationClient, never()).sendNotification(any(NotificationPayload.class));
+        verify(accountClient, times(1)).applyBalanceDelta(eq(accountNumber), anyMap());
+        verify(ledger, never()).record(any(Transaction.class), anyList());
     }
 
     @Test
@@ -249,7 +277,7 @@ class TransactionServiceTest {
         );
 
         assertEquals("Amount must be positive", exception.getMessage());
-        verify(accountClient, never()).getAccount(anyString());
+        verify(accountClient, never()).applyBalanceDelta(anyString(), anyMap());
     }
 
     @Test
@@ -257,19 +285,17 @@ class TransactionServiceTest {
 
         String accountNumber = "ACC001";
         double withdrawAmount = 5000.0; 
-        double expectedNewBalance = 0.0;
 
-        when(accountClient.getAccount(accountNumber)).thenReturn(testAccount);
-        when(accountClient.updateBalance(eq(accountNumber), anyMap())).thenReturn(testAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.applyBalanceDelta(eq(accountNumber), anyMap())).thenReturn(testAccount);
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
 
         Transaction result = transactionService.withdraw(accountNumber, withdrawAmount);
 
 
         assertNotNull(result);
-        verify(accountClient, times(1)).updateBalance(eq(accountNumber), argThat(map ->
-                map.get("balance").equals(expectedNewBalance)
+        verify(accountClient, times(1)).applyBalanceDelta(eq(accountNumber), argThat(map ->
+                map.get("amount").equals(-withdrawAmount)
         ));
     }
 
@@ -284,11 +310,8 @@ class TransactionServiceTest {
         AccountDTO sourceAccount = new AccountDTO("123", "ACC001", "John Doe", 5000.0);
         AccountDTO destAccount = new AccountDTO("456", "ACC002", "Jane Smith", 3000.0);
 
-        when(accountClient.getAccount(fromAccount)).thenReturn(sourceAccount);
-        when(accountClient.getAccount(toAccount)).thenReturn(destAccount);
-        when(accountClient.updateBalance(eq(fromAccount), anyMap())).thenReturn(sourceAccount);
-        when(accountClient.updateBalance(eq(toAccount), anyMap())).thenReturn(destAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.transfer(anyMap())).thenReturn(new TransferResultDTO(sourceAccount, destAccount));
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
 
         Transaction result = transactionService.transfer(fromAccount, toAccount, transferAmount);
@@ -301,16 +324,15 @@ class TransactionServiceTest {
         assertEquals(fromAccount, result.getSourceAccount());
         assertEquals(toAccount, result.getDestinationAccount());
 
-        verify(accountClient, times(1)).getAccount(fromAccount);
-        verify(accountClient, times(1)).getAccount(toAccount);
-        verify(accountClient, times(1)).updateBalance(eq(fromAccount), argThat(map ->
-                map.get("balance").equals(4000.0)
+        verify(accountClient, times(1)).transfer(argThat(map ->
+                map.get("from").equals(fromAccount) && map.get("to").equals(toAccount)
+                        && map.get("amount").equals(1000.0)
         ));
-        verify(accountClient, times(1)).updateBalance(eq(toAccount), argThat(map ->
-                map.get("balance").equals(4000.0)
-        ));
-        verify(txnRepo, times(1)).save(any(Transaction.class));
-        verify(notificationClient, times(2)).sendNotification(any(NotificationPayload.class));
+        verify(accountClient, never()).getAccount(anyString());
+        verify(accountClient, never()).applyBalanceDelta(anyString(), anyMap());
+        verify(lanes).run(eq(fromAccount), eq(toAccount), any());
+        verify(ledger, times(1)).record(any(Transaction.class), anyList());
+        verify(ledger).record(any(Transaction.class), argThat(notifications -> notifications.size() == 2));
     }
 
     @Test
@@ -326,8 +348,8 @@ class TransactionServiceTest {
         );
 
         assertEquals("Cannot transfer to same account", exception.getMessage());
-        verify(accountClient, never()).getAccount(anyString());
-        verify(txnRepo, never()).save(any(Transaction.class));
+        verify(accountClient, never()).transfer(anyMap());
+        verify(ledger, never()).record(any(Transaction.class), anyList());
     }
 
     @Test
@@ -337,11 +359,7 @@ class TransactionServiceTest {
         String toAccount = "ACC002";
         double transferAmount = 10000.0; 
 
-        AccountDTO sourceAccount = new AccountDTO("123", "ACC001", "John Doe", 5000.0);
-        AccountDTO destAccount = new AccountDTO("456", "ACC002", "Jane Smith", 3000.0);
-
-        when(accountClient.getAccount(fromAccount)).thenReturn(sourceAccount);
-        when(accountClient.getAccount(toAccount)).thenReturn(destAccount);
+        when(accountClient.transfer(anyMap())).thenThrow(mock(FeignException.Conflict.class));
 
 
         IllegalArgumentException exception = assertThrows(
@@ -350,8 +368,7 @@ class TransactionServiceTest {
         );
 
         assertEquals("Insufficient balance", exception.getMessage());
-        verify(accountClient, never()).updateBalance(anyString(), anyMap());
-        verify(txnRepo, never()).save(any(Transaction.class));
+        verify(ledger, never()).record(any(Transaction.class), anyList());
     }
 
     @Test
@@ -368,7 +385,7 @@ class TransactionServiceTest {
         );
 
         assertEquals("Amount must be positive", exception.getMessage());
-        verify(accountClient, never()).getAccount(anyString());
+        verify(accountClient, never()).transfer(anyMap());
     }
 
     @Test
@@ -381,19 +398,18 @@ class TransactionServiceTest {
         AccountDTO sourceAccount = new AccountDTO("123", "ACC001", "John Doe", 5000.0);
         AccountDTO destAccount = new AccountDTO("456", "ACC002", "Jane Smith", 3000.0);
 
-        when(accountClient.getAccount(fromAccount)).thenReturn(sourceAccount);
-        when(accountClient.getAccount(toAccount)).thenReturn(destAccount);
-        when(accountClient.updateBalance(anyString(), anyMap())).thenReturn(sourceAccount);
-        when(txnRepo.save(any(Transaction.class))).thenReturn(testTransaction);
+        when(accountClient.transfer(anyMap())).thenReturn(new TransferResultDTO(sourceAccount, destAccount));
+        when(ledger.record(any(Transaction.class), anyList())).thenReturn(testTransaction);
 
-        ArgumentCaptor<NotificationPayload> captor = ArgumentCaptor.forClass(NotificationPayload.class);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<NotificationPayload>> captor = ArgumentCaptor.forClass(List.class);
 
  
         transactionService.transfer(fromAccount, toAccount, transferAmount);
 
     
-        verify(notificationClient, times(2)).sendNotification(captor.capture());
-        List<NotificationPayload> notifications = captor.getAllValues();
+        verify(ledger).record(any(Transaction.class), captor.capture());
+        List<NotificationPayload> notifications = captor.getValue();
 
         assertEquals(2, notifications.size());
         
@@ -409,26 +425,156 @@ class TransactionServiceTest {
     }
 
     @Test
-    void testFallbackTransaction_SavesFailedTransaction() {
+    void testTransfer_AccountServiceFails_NothingRecorded() {
+
+        when(accountClient.transfer(anyMap())).thenThrow(new RuntimeException("account-service unavailable"));
+
+
+        assertThrows(RuntimeException.class,
+                () -> transactionService.transfer("ACC001", "ACC002", 1000.0));
+
+
+        verify(accountClient, never()).applyBalanceDelta(anyString(), anyMap());
+        verify(ledger, never()).record(any(Transaction.class), anyList());
+    }
+
+    @Test
+    void testFallbackDeposit_AccountBusy_PassesThrough() {
+
+        AccountLanes.BusyException exception = new AccountLanes.BusyException("Account is busy, retry later");
+
+
+        AccountLanes.BusyException thrown = assertThrows(AccountLanes.BusyException.class,
+                () -> transactionService.fallbackDeposit("ACC001", 100.0, exception));
+
+
+        assertSame(exception, thrown);
+        assertEquals(503, thrown.getStatusCode().value());
+        verifyNoInteractions(ledger, pending);
+    }
+
+    @Test
+    void testFallbackDeposit_SavesFailedDeposit() {
 
         String accountNumber = "ACC001";
         double amount = 1000.0;
         Throwable exception = new RuntimeException("Service unavailable");
 
-        when(txnRepo.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(ledger.record(any(Transaction.class), eq(List.of()))).thenAnswer(invocation -> invocation.getArgument(0));
 
         
-        Transaction result = transactionService.fallbackTransaction(accountNumber, amount, exception);
+        Transaction result = transactionService.fallbackDeposit(accountNumber, amount, exception);
 
     
         assertNotNull(result);
         assertEquals("FAILED", result.getStatus());
+        assertEquals("DEPOSIT", result.getType());
+        assertEquals(accountNumber, result.getDestinationAccount());
         assertEquals(amount, result.getAmount());
         assertNotNull(result.getTransactionId());
         assertTrue(result.getTransactionId().startsWith("TXN-"));
         assertNotNull(result.getTimestamp());
+        assertTrue(result.isOutcomeUnknown());
+
+        verify(ledger, times(1)).record(any(Transaction.class), eq(List.of()));
+    }
+
+    @Test
+    void testFallbackWithdraw_Rejected_OutcomeKnown() {
+
+        Throwable exception = new IllegalArgumentException("Insufficient funds");
+        when(ledger.record(any(Transaction.class), eq(List.of()))).thenAnswer(invocation -> invocation.getArgument(0));
+
+
+        Transaction result = transactionService.fallbackWithdraw("ACC001", 200.0, exception);
+
+
+        assertEquals("FAILED", result.getStatus());
+        assertFalse(result.isOutcomeUnknown());
+    }
+
+    @Test
+    void testFallbackWithdraw_DegradedMode_QueuesPending() {
+
+        Throwable exception = new RuntimeException("Service unavailable");
+        when(pending.accepts(exception)).thenReturn(true);
+        when(ledger.record(any(Transaction.class), eq(List.of()))).thenAnswer(invocation -> invocation.getArgument(0));
+
+
+        Transaction result = transactionService.fallbackWithdraw("ACC001", 200.0, exception);
+
+
+        assertEquals("PENDING", result.getStatus());
+        assertEquals("ACC001", result.getSourceAccount());
+    }
+
+    @Test
+    void testSettle_InsufficientFunds_SettlesAsFailed() {
+
+        Transaction queued = new Transaction();
+        queued.setTransactionId("TXN-pending");
+        queued.setType("WITHDRAW");
+        queued.setAmount(9000.0);
+        queued.setStatus("PENDING");
+        queued.setSourceAccount("ACC001");
+        when(pending.claim(queued)).thenReturn(true);
+        when(pending.owner()).thenReturn("instance-1");
+        when(ledger.settle(queued, List.of(), "instance-1")).thenReturn(true);
+        when(accountClient.applyBalanceDelta(eq("ACC001"), anyMap())).thenThrow(FeignException.Conflict.class);
+
+
+        Transaction result = transactionService.settle(queued);
+
+
+        assertEquals("FAILED", result.getStatus());
+        assertNotNull(result.getTimestamp());
+        verify(ledger).settle(queued, List.of(), "instance-1");
+        verify(ledger, never()).record(any(Transaction.class), anyList());
+    }
+
+    @Test
+    void testSettle_LeaseLost_DoesNotCallAccountService() {
+
+        Transaction queued = new Transaction();
+        queued.setTransactionId("TXN-pending");
+        queued.setType("DEPOSIT");
+        queued.setAmount(100.0);
+        queued.setStatus("PENDING");
+        queued.setDestinationAccount("ACC001");
+        when(pending.claim(queued)).thenReturn(false);
+
+
+        Transaction result = transactionService.settle(queued);
+
+
+        assertEquals("PENDING", result.getStatus());
+        verifyNoInteractions(accountClient);
+        verify(ledger, never()).settle(any(Transaction.class), anyList(), anyString());
+    }
+
+    @Test
+    void testSettle_ReadTimeout_SettlesAsFailedAndRethrows() {
+
+        Transaction queued = new Transaction();
+        queued.setTransactionId("TXN-pending");
+        queued.setType("DEPOSIT");
+        queued.setAmount(100.0);
+        queued.setStatus("PENDING");
+        queued.setDestinationAccount("ACC001");
+        when(pending.claim(queued)).thenReturn(true);
+        when(pending.owner()).thenReturn("instance-1");
+        when(ledger.settle(queued, List.of(), "instance-1")).thenReturn(true);
+        when(accountClient.applyBalanceDelta(eq("ACC001"), anyMap())).thenThrow(new RetryableException(
+                -1, "Read timed out", Request.HttpMethod.POST, new SocketTimeoutException("Read timed out"), (Long) null,
+                Request.create(Request.HttpMethod.POST, "/accounts/ACC001/delta", Map.of(), null, StandardCharsets.UTF_8, null)));
+
+
+        assertThrows(RetryableException.class, () -> transactionService.settle(queued));
+
 
-        verify(txnRepo, times(1)).save(any(Transaction.class));
+        assertEquals("FAILED", queued.getStatus());
+        assertTrue(queued.isOutcomeUnknown());
+        verify(ledger).settle(queued, List.of(), "instance-1");
     }
 
     @Test
@@ -439,7 +585,7 @@ class TransactionServiceTest {
         double amount = 1000.0;
         Throwable exception = new RuntimeException("Service unavailable");
 
-        when(txnRepo.save(any(Transaction.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(ledger.record(any(Transaction.class), eq(List.of()))).thenAnswer(invocation -> invocation.getArgument(0));
 
   
         Transaction result = transactionService.fallbackTransactionTransfer(
@@ -456,6 +602,6 @@ class TransactionServiceTest {
         assertTrue(result.getTransactionId().startsWith("TXN-"));
         assertNotNull(result.getTimestamp());
 
-        verify(txnRepo, times(1)).save(any(Transaction.class));
+        verify(ledger, times(1)).record(any(Transaction.class), eq(List.of()));
     }
 }